@@ -0,0 +1,27 @@
+package top.lingyuzhao.varFormatter.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 字段注解，可以指定字段在格式化结果中的键名，同时被此注解标记的 static 与 transient 字段也会被格式化。
+ * <p>
+ * Field annotation, which sets the key of the field in the formatted output. static and transient fields marked with this annotation are formatted as well.
+ *
+ * @author zhao
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface FormatField {
+
+    /**
+     * @return 字段在格式化结果中的键名，为空时使用字段的名字与类的命名策略
+     * <p>
+     * The key of the field in the formatted output, the field name and the naming strategy of the class are used when it is empty
+     */
+    String value() default "";
+}
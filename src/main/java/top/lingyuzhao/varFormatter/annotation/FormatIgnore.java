@@ -0,0 +1,20 @@
+package top.lingyuzhao.varFormatter.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 忽略注解，被此注解标记的字段不会出现在格式化结果中，也不会在格式化时被读取。
+ * <p>
+ * Ignore annotation. Fields marked with this annotation do not appear in the formatted output and are not read while formatting.
+ *
+ * @author zhao
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface FormatIgnore {
+}
@@ -0,0 +1,29 @@
+package top.lingyuzhao.varFormatter.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 命名策略注解，被此注解标记的类中的所有字段（包括从父类继承的字段）都会使用指定的命名策略生成输出时的键名，被 {@link FormatField} 指定了名字的字段不受影响。
+ * <p>
+ * Naming strategy annotation. Every field of the marked class, inherited fields included, is written with a key produced by the given strategy. Fields whose name is set by {@link FormatField} are not affected.
+ *
+ * @author zhao
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface FormatNaming {
+
+    /**
+     * @return 字段名字的命名策略
+     * <p>
+     * The naming strategy of the fields
+     */
+    NamingStrategy value();
+}
@@ -0,0 +1,24 @@
+package top.lingyuzhao.varFormatter.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 可格式化标记注解，被此注解标记的类在编译时会由 varFormatter-processor 注解处理器生成一个结构读取器，格式化时会直接使用生成的代码读取字段，不再需要反射。
+ * <p>
+ * Formattable marker annotation. For classes marked with this annotation the varFormatter-processor annotation processor generates a structure reader at compile time, and formatting reads the fields through the generated code without reflection.
+ * <p>
+ * 如果编译时没有启用注解处理器，则格式化时会自动回退到反射的方式。
+ * <p>
+ * If the annotation processor was not enabled at compile time, formatting falls back to reflection automatically.
+ *
+ * @author zhao
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Formattable {
+}
@@ -0,0 +1,81 @@
+package top.lingyuzhao.varFormatter.annotation;
+
+/**
+ * 字段名字的命名策略，决定了 Java 中的字段名字在格式化结果中对应的键名。
+ * <p>
+ * Naming strategy of fields, which decides the key a Java field name is written as in the formatted output.
+ *
+ * @author zhao
+ */
+public enum NamingStrategy {
+
+    /**
+     * 直接使用字段的名字，例如 `userName` 会被输出为 `userName`
+     * <p>
+     * Use the field name as is, for example `userName` is written as `userName`
+     */
+    IDENTITY {
+        @Override
+        public String apply(String name) {
+            return name;
+        }
+    },
+
+    /**
+     * 小写的下划线命名，例如 `userName` 会被输出为 `user_name`，`httpURLValue` 会被输出为 `http_url_value`
+     * <p>
+     * Lower case snake naming, for example `userName` is written as `user_name` and `httpURLValue` as `http_url_value`
+     */
+    SNAKE_CASE {
+        @Override
+        public String apply(String name) {
+            return separate(name, '_');
+        }
+    },
+
+    /**
+     * 小写的中划线命名，例如 `userName` 会被输出为 `user-name`
+     * <p>
+     * Lower case kebab naming, for example `userName` is written as `user-name`
+     */
+    KEBAB_CASE {
+        @Override
+        public String apply(String name) {
+            return separate(name, '-');
+        }
+    };
+
+    /**
+     * 将字段的名字转换为输出时使用的键名。
+     * <p>
+     * Convert a field name into the key used in the output.
+     *
+     * @param name 字段的名字
+     * @return 输出时使用的键名
+     */
+    public abstract String apply(String name);
+
+    /**
+     * 在驼峰命名的单词之间插入分隔符并转换为小写，连续的大写字母会被视为一个单词。
+     */
+    private static String separate(String name, char separator) {
+        final int length = name.length();
+        final StringBuilder builder = new StringBuilder(length + 4);
+        for (int i = 0; i < length; i++) {
+            final char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0 && builder.charAt(builder.length() - 1) != separator) {
+                    final char previous = name.charAt(i - 1);
+                    final boolean nextLower = i + 1 < length && Character.isLowerCase(name.charAt(i + 1));
+                    if (!Character.isUpperCase(previous) || nextLower) {
+                        builder.append(separator);
+                    }
+                }
+                builder.append(Character.toLowerCase(c));
+            } else {
+                builder.append(c == '_' || c == '-' ? separator : c);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package top.lingyuzhao.varFormatter.core;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 异步格式化默认使用的线程池，在 Java 21 及以上的运行环境中会为每一个任务创建一个虚拟线程，在更低版本的运行环境中使用 {@link ForkJoinPool#commonPool()}。
+ * <p>
+ * The executor used by asynchronous formatting by default. On Java 21 and later every task runs on its own virtual thread, older runtimes use {@link ForkJoinPool#commonPool()}.
+ * <p>
+ * 虚拟线程的线程池是在运行时通过反射获取的，因此库本身依旧可以在 Java 8 中编译与运行。
+ * <p>
+ * The virtual thread executor is looked up reflectively at runtime, so the library itself still compiles and runs on Java 8.
+ *
+ * @author zhao
+ */
+final class AsyncExecutors {
+
+    private AsyncExecutors() {
+    }
+
+    /**
+     * @return 异步格式化默认使用的线程池
+     */
+    static Executor defaultExecutor() {
+        return Holder.DEFAULT;
+    }
+
+    /**
+     * 延迟初始化，只有在第一次使用异步格式化的时候才会查找虚拟线程。
+     */
+    private static final class Holder {
+        static final Executor DEFAULT = lookup();
+
+        private static Executor lookup() {
+            try {
+                return (ExecutorService) MethodHandles.publicLookup()
+                        .findStatic(java.util.concurrent.Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                        .invoke();
+            } catch (Throwable e) {
+                // Java 21 之前没有虚拟线程
+                return ForkJoinPool.commonPool();
+            }
+        }
+    }
+}
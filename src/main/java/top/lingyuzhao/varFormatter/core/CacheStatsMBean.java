@@ -0,0 +1,46 @@
+package top.lingyuzhao.varFormatter.core;
+
+/**
+ * 结构缓冲池的统计数据，会以 JMX MBean 的形式注册，对应 {@link StructuralCache} 与 {@link StructuralNameCache}。
+ * <p>
+ * Statistics of a structure cache, registered as a JMX MBean for {@link StructuralCache} and {@link StructuralNameCache}.
+ *
+ * @author zhao
+ */
+public interface CacheStatsMBean {
+
+    /**
+     * @return 缓冲池的命中次数
+     * <p>
+     * Number of cache hits
+     */
+    long getHitCount();
+
+    /**
+     * @return 缓冲池的未命中次数
+     * <p>
+     * Number of cache misses
+     */
+    long getMissCount();
+
+    /**
+     * @return 当前被缓存的类的数量，被淘汰与被卸载的类不会被计入
+     * <p>
+     * The number of classes cached right now, evicted and unloaded classes are not counted
+     */
+    long getCachedClasses();
+
+    /**
+     * @return 因为超过容量上限而被淘汰的类的数量
+     * <p>
+     * The number of classes evicted because the capacity limit was exceeded
+     */
+    long getEvictionCount();
+
+    /**
+     * @return 最多缓存的类的数量，为 0 代表没有上限
+     * <p>
+     * The maximum number of cached classes, 0 means unlimited
+     */
+    int getMaxSize();
+}
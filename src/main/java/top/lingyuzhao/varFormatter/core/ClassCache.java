@@ -0,0 +1,186 @@
+package top.lingyuzhao.varFormatter.core;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * 有容量上限的类缓冲池，数据存储在 ClassValue 中，读取时无锁且不会阻止类与它的类加载器被卸载。
+ * <p>
+ * A class cache with a capacity limit. Data lives in a ClassValue, so reads are lock-free and do not keep classes or their class loaders from being unloaded.
+ * <p>
+ * 缓存的类数量超过上限时使用 CLOCK 算法淘汰，这是一种近似 LRU 的算法：每一个类在被再次读取时获得一次机会，淘汰时跳过有机会的类并收回它的机会，因此频繁使用的类会一直留在缓冲池中，只使用过一次的类（例如动态生成的代理类）会最先被淘汰。淘汰的记录中只保存类的弱引用，被卸载的类会被直接清理，不计入淘汰次数。
+ * <p>
+ * When more classes are cached than allowed, the CLOCK algorithm, an approximation of LRU, evicts them. A class gets a second chance whenever it is read again, and eviction skips classes holding a chance while taking it away, so frequently used classes stay cached and classes used only once, such as generated proxy classes, are evicted first. The eviction ring only keeps weak references to classes, unloaded classes are purged without counting as evictions.
+ *
+ * @param <V> 缓存的数据类型
+ * @author zhao
+ */
+final class ClassCache<V> {
+
+    /**
+     * 还没有加入淘汰记录中的节点
+     */
+    private static final int NEW = 0;
+
+    /**
+     * 已经加入淘汰记录中，并且之后没有被读取过的节点
+     */
+    private static final int ADMITTED = 1;
+
+    /**
+     * 加入淘汰记录之后被读取过的节点，淘汰时会被跳过一次
+     */
+    private static final int REFERENCED = 2;
+
+    private final Function<Class<?>, V> loader;
+    private final IntSupplier maxSize;
+    private final LongAdder lookup = new LongAdder();
+    private final LongAdder miss = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 淘汰记录，按照加入的顺序排列，访问时需要持有当前对象的锁。
+     */
+    private final ArrayDeque<Node> ring = new ArrayDeque<>();
+
+    /**
+     * 没有容量上限时清理已卸载的类的阈值。
+     */
+    private int purgeAt = 64;
+
+    private final ClassValue<Entry<V>> values = new ClassValue<Entry<V>>() {
+        @Override
+        protected Entry<V> computeValue(Class<?> type) {
+            miss.increment();
+            return new Entry<>(loader.apply(type), new Node(type));
+        }
+    };
+
+    /**
+     * @param loader  没有缓存过的类的数据的生成函数
+     * @param maxSize 最多缓存的类的数量，为 0 代表没有上限，只有在缓存新的类时才会读取
+     */
+    ClassCache(Function<Class<?>, V> loader, IntSupplier maxSize) {
+        this.loader = loader;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 获取一个类对应的数据，没有缓存过时会生成并缓存。
+     *
+     * @param type 需要获取数据的类
+     * @return 类对应的数据
+     */
+    V get(Class<?> type) {
+        lookup.increment();
+        final Entry<V> entry = values.get(type);
+        final Node node = entry.node;
+        if (node.state != REFERENCED) {
+            // 已经被标记过的节点不再写入 避免读取时产生写竞争
+            this.touch(node);
+        }
+        return entry.value;
+    }
+
+    private void touch(Node node) {
+        if (node.state == ADMITTED) {
+            node.state = REFERENCED;
+            return;
+        }
+        synchronized (this) {
+            if (node.state != NEW) {
+                return;
+            }
+            // 只有真正存储在 ClassValue 中的节点才会在这里被加入 并发计算中落选的节点不会被读取到
+            node.state = ADMITTED;
+            ring.add(node);
+            this.trim();
+        }
+    }
+
+    /**
+     * 淘汰超出容量上限的类。
+     */
+    synchronized void trim() {
+        final int max = maxSize.getAsInt();
+        if (max <= 0) {
+            if (ring.size() >= purgeAt) {
+                ring.removeIf(n -> n.type.get() == null);
+                purgeAt = Math.max(64, ring.size() << 1);
+            }
+            return;
+        }
+        while (ring.size() > max) {
+            final Node node = ring.poll();
+            final Class<?> type = node.type.get();
+            if (type == null) {
+                // 类已经被卸载
+                continue;
+            }
+            if (node.state == REFERENCED) {
+                node.state = ADMITTED;
+                ring.add(node);
+                continue;
+            }
+            values.remove(type);
+            evictions.increment();
+        }
+    }
+
+    /**
+     * @return 缓冲池的命中次数
+     */
+    long getHitCount() {
+        return lookup.sum() - miss.sum();
+    }
+
+    /**
+     * @return 缓冲池的未命中次数，被淘汰的类再次读取时会再次未命中
+     */
+    long getMissCount() {
+        return miss.sum();
+    }
+
+    /**
+     * @return 被淘汰的类的数量
+     */
+    long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return 当前缓存的类的数量，已经被卸载的类不会被计入
+     */
+    synchronized int size() {
+        ring.removeIf(n -> n.type.get() == null);
+        return ring.size();
+    }
+
+    /**
+     * 缓存的数据以及它在淘汰记录中的节点。
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final Node node;
+
+        Entry(V value, Node node) {
+            this.value = value;
+            this.node = node;
+        }
+    }
+
+    /**
+     * 淘汰记录中的节点，只持有类的弱引用，不会引用缓存的数据，因此不会阻止类被卸载。
+     */
+    private static final class Node {
+        private final WeakReference<Class<?>> type;
+        private int state;
+
+        Node(Class<?> type) {
+            this.type = new WeakReference<>(type);
+        }
+    }
+}
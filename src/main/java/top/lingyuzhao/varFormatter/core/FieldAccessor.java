@@ -0,0 +1,338 @@
+package top.lingyuzhao.varFormatter.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * 字段访问器，此访问器在创建时会将字段编译为一个 MethodHandle，之后的每一次读取都不再需要进行访问权限的检查，同时针对基本数据类型提供了不需要装箱的读取函数。
+ * <p>
+ * Field accessor, which compiles the field into a MethodHandle at creation time, so subsequent reads no longer need access checks. It also provides unboxed read functions for primitive types.
+ * <p>
+ * 如果类被 {@link top.lingyuzhao.varFormatter.annotation.Formattable} 注解并且在编译时生成了 {@link GeneratedStructure}，则访问器会直接调用生成的代码，不会使用任何的反射。
+ * <p>
+ * If the class is annotated with {@link top.lingyuzhao.varFormatter.annotation.Formattable} and a {@link GeneratedStructure} was generated at compile time, the accessor calls the generated code directly without any reflection.
+ *
+ * @author zhao
+ */
+public abstract class FieldAccessor {
+
+    /**
+     * 字段类型：引用类型
+     */
+    public static final int KIND_OBJECT = 0;
+    /**
+     * 字段类型：byte short int
+     */
+    public static final int KIND_INT = 1;
+    /**
+     * 字段类型：long
+     */
+    public static final int KIND_LONG = 2;
+    /**
+     * 字段类型：float
+     */
+    public static final int KIND_FLOAT = 3;
+    /**
+     * 字段类型：double
+     */
+    public static final int KIND_DOUBLE = 4;
+    /**
+     * 字段类型：boolean
+     */
+    public static final int KIND_BOOLEAN = 5;
+    /**
+     * 字段类型：char
+     */
+    public static final int KIND_CHAR = 6;
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final String name;
+    private final int kind;
+
+    FieldAccessor(String name, int kind) {
+        this.name = name;
+        this.kind = kind;
+    }
+
+    /**
+     * 根据一个字段构建出对应的访问器。
+     *
+     * @param field 需要被访问的字段
+     * @return 字段对应的访问器
+     */
+    static FieldAccessor of(Field field) {
+        return of(field, field.getName());
+    }
+
+    /**
+     * 根据一个字段构建出对应的访问器。
+     *
+     * @param field 需要被访问的字段
+     * @param name  字段在格式化结果中的键名
+     * @return 字段对应的访问器
+     */
+    static FieldAccessor of(Field field, String name) {
+        field.setAccessible(true);
+        final Class<?> type = field.getType();
+        final int kind = kindOf(type);
+        final Class<?> handleType = kind == KIND_INT ? int.class : kind == KIND_OBJECT ? Object.class : type;
+        try {
+            MethodHandle handle = LOOKUP.unreflectGetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            return new HandleAccessor(field, name, kind, handle.asType(MethodType.methodType(handleType, Object.class)));
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 根据编译时生成的结构读取器构建出对应的访问器。
+     *
+     * @param structure 编译时生成的结构读取器
+     * @param index     字段在结构读取器中的索引
+     * @return 字段对应的访问器
+     */
+    static FieldAccessor of(GeneratedStructure structure, int index) {
+        return new GeneratedAccessor(structure, index);
+    }
+
+    /**
+     * 获取一个类型对应的字段类型编号。
+     *
+     * @param type 字段的类型
+     * @return 字段类型编号
+     */
+    static int kindOf(Class<?> type) {
+        if (type == int.class || type == short.class || type == byte.class) {
+            return KIND_INT;
+        } else if (type == long.class) {
+            return KIND_LONG;
+        } else if (type == double.class) {
+            return KIND_DOUBLE;
+        } else if (type == float.class) {
+            return KIND_FLOAT;
+        } else if (type == boolean.class) {
+            return KIND_BOOLEAN;
+        } else if (type == char.class) {
+            return KIND_CHAR;
+        }
+        return KIND_OBJECT;
+    }
+
+    /**
+     * @return 被访问的字段对象，如果访问器来自于编译时生成的代码，则返回 null
+     * <p>
+     * The accessed field object, or null if the accessor comes from code generated at compile time
+     */
+    public Field getField() {
+        return null;
+    }
+
+    /**
+     * @return 字段在格式化结果中的键名，已经应用了 FormatField 与 FormatNaming 注解
+     * <p>
+     * The key of the field in the formatted output, with the FormatField and FormatNaming annotations already applied
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 字段的类型编号，可以根据此编号选择对应的不需要装箱的读取函数。
+     * <p>
+     * The kind number of the field, which can be used to choose the corresponding unboxed read function.
+     */
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * 读取字段的值，基本数据类型会按照字段声明的类型装箱，例如 short 字段返回 Short。
+     * <p>
+     * Read the value of the field. Primitive values are boxed as the declared type, for example a short field returns a Short.
+     *
+     * @param data 需要被读取的实例
+     * @return 字段的值
+     */
+    public abstract Object get(Object data);
+
+    /**
+     * 读取 byte short int 类型字段的值，不会进行装箱。
+     *
+     * @param data 需要被读取的实例
+     * @return 字段的值
+     */
+    public abstract int getInt(Object data);
+
+    /**
+     * 读取 long 类型字段的值，不会进行装箱。
+     *
+     * @param data 需要被读取的实例
+     * @return 字段的值
+     */
+    public abstract long getLong(Object data);
+
+    /**
+     * 读取 double 类型字段的值，不会进行装箱。
+     *
+     * @param data 需要被读取的实例
+     * @return 字段的值
+     */
+    public abstract double getDouble(Object data);
+
+    /**
+     * 读取 float 类型字段的值，不会进行装箱。
+     *
+     * @param data 需要被读取的实例
+     * @return 字段的值
+     */
+    public abstract float getFloat(Object data);
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new RuntimeException(e);
+    }
+
+    /**
+     * 基于 MethodHandle 的字段访问器。
+     */
+    private static final class HandleAccessor extends FieldAccessor {
+        private final Field field;
+        /**
+         * 已经被适配为 (Object)T 形式的读取句柄，其中 T 是 Object 或者对应的基本类型。
+         * <p>
+         * A read handle adapted to the form (Object)T, where T is Object or the corresponding primitive type.
+         */
+        private final MethodHandle handle;
+
+        HandleAccessor(Field field, String name, int kind, MethodHandle handle) {
+            super(name, kind);
+            this.field = field;
+            this.handle = handle;
+        }
+
+        @Override
+        public Field getField() {
+            return field;
+        }
+
+        @Override
+        public Object get(Object data) {
+            try {
+                switch (this.getKind()) {
+                    case KIND_INT:
+                        final int value = (int) handle.invokeExact(data);
+                        // short 与 byte 字段按照声明的类型装箱 与直接通过反射读取的结果保持一致
+                        final Class<?> type = field.getType();
+                        if (type == short.class) {
+                            return (short) value;
+                        }
+                        if (type == byte.class) {
+                            return (byte) value;
+                        }
+                        return value;
+                    case KIND_LONG:
+                        return (long) handle.invokeExact(data);
+                    case KIND_DOUBLE:
+                        return (double) handle.invokeExact(data);
+                    case KIND_FLOAT:
+                        return (float) handle.invokeExact(data);
+                    case KIND_BOOLEAN:
+                        return (boolean) handle.invokeExact(data);
+                    case KIND_CHAR:
+                        return (char) handle.invokeExact(data);
+                    default:
+                        return (Object) handle.invokeExact(data);
+                }
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public int getInt(Object data) {
+            try {
+                return (int) handle.invokeExact(data);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public long getLong(Object data) {
+            try {
+                return (long) handle.invokeExact(data);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public double getDouble(Object data) {
+            try {
+                return (double) handle.invokeExact(data);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public float getFloat(Object data) {
+            try {
+                return (float) handle.invokeExact(data);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+    }
+
+    /**
+     * 基于编译时生成代码的字段访问器。
+     */
+    private static final class GeneratedAccessor extends FieldAccessor {
+        private final GeneratedStructure structure;
+        private final int index;
+
+        GeneratedAccessor(GeneratedStructure structure, int index) {
+            super(structure.getNames()[index], structure.getKinds()[index]);
+            this.structure = structure;
+            this.index = index;
+        }
+
+        @Override
+        public Object get(Object data) {
+            return structure.get(data, index);
+        }
+
+        @Override
+        public int getInt(Object data) {
+            return structure.getInt(data, index);
+        }
+
+        @Override
+        public long getLong(Object data) {
+            return structure.getLong(data, index);
+        }
+
+        @Override
+        public double getDouble(Object data) {
+            return structure.getDouble(data, index);
+        }
+
+        @Override
+        public float getFloat(Object data) {
+            return structure.getFloat(data, index);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package top.lingyuzhao.varFormatter.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 对象字段的 Map 视图，此视图不会复制任何字段的数据，每一次读取都会直接通过字段访问器从对象中获取，因此格式化一个对象的时候不需要再创建中间的 Map 对象。
+ * <p>
+ * A Map view over the fields of an object. The view does not copy any field data, every read goes straight through the field accessors to the object, so formatting an object no longer needs an intermediate Map.
+ *
+ * @author zhao
+ */
+final class FieldMapView extends AbstractMap<String, Object> {
+
+    /**
+     * 被查看的对象所属的类
+     * <p>
+     * The class of the viewed object
+     */
+    private final Class<?> type;
+
+    /**
+     * 对象所属类的字段访问器，来自于缓冲池。
+     * <p>
+     * The field accessors of the object's class, taken from the buffer pool.
+     */
+    private final FieldAccessor[] accessors;
+
+    /**
+     * 被查看的对象
+     * <p>
+     * The viewed object
+     */
+    private final Object data;
+
+    /**
+     * 用来记录 entrySet 的惰性实例，只有在需要的时候才会创建。
+     */
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    FieldMapView(Class<?> type, FieldAccessor[] accessors, Object data) {
+        this.type = type;
+        this.accessors = accessors;
+        this.data = data;
+    }
+
+    /**
+     * @return 被查看的对象所属的类
+     */
+    Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return 对象所属类的字段访问器
+     */
+    FieldAccessor[] getAccessors() {
+        return accessors;
+    }
+
+    /**
+     * @return 被查看的对象
+     */
+    Object getData() {
+        return data;
+    }
+
+    @Override
+    public int size() {
+        return accessors.length;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        // 直接读取并交给调用者 不会创建任何的 Entry
+        for (FieldAccessor accessor : accessors) {
+            action.accept(accessor.getName(), accessor.get(data));
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new Iterator<Map.Entry<String, Object>>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < accessors.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Object> next() {
+                            if (index >= accessors.length) {
+                                throw new NoSuchElementException();
+                            }
+                            final FieldAccessor accessor = accessors[index++];
+                            return new SimpleImmutableEntry<>(accessor.getName(), accessor.get(data));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return accessors.length;
+                }
+            };
+        }
+        return entrySet;
+    }
+}
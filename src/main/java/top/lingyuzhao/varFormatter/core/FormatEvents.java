@@ -0,0 +1,137 @@
+package top.lingyuzhao.varFormatter.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 格式化调用的 JDK Flight Recorder 事件，事件的名字是 `top.lingyuzhao.varFormatter.Format`，包含格式化组件类型、根对象的类、输出的字节与字符数量、对象的嵌套深度以及读取的对象数量。
+ * <p>
+ * The JDK Flight Recorder event of a formatting call, named `top.lingyuzhao.varFormatter.Format`. It carries the formatter type, the class of the root object, the bytes and chars produced, the nesting depth of the objects and the number of objects read.
+ * <p>
+ * 事件类型是在运行时通过 `jdk.jfr.EventFactory` 反射创建的，因此库本身依旧可以在 Java 8 中编译与运行，不支持 JFR 的运行环境中事件不可用。
+ * <p>
+ * The event type is created reflectively at runtime through `jdk.jfr.EventFactory`, so the library itself still compiles and runs on Java 8. Events are unavailable on runtimes without JFR.
+ *
+ * @author zhao
+ */
+final class FormatEvents {
+
+    /**
+     * 事件的名字
+     */
+    static final String NAME = "top.lingyuzhao.varFormatter.Format";
+
+    private static final MethodHandle NEW_EVENT;
+    private static final MethodHandle BEGIN;
+    private static final MethodHandle END;
+    private static final MethodHandle SHOULD_COMMIT;
+    private static final MethodHandle SET;
+    private static final MethodHandle COMMIT;
+
+    static {
+        MethodHandle newEvent = null, begin = null, end = null, shouldCommit = null, set = null, commit = null;
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            final Class<?> eventClass = Class.forName("jdk.jfr.Event");
+            final Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+            final Class<?> annotationClass = Class.forName("jdk.jfr.AnnotationElement");
+            final Class<?> descriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+            final MethodHandle annotation = lookup.findConstructor(annotationClass, MethodType.methodType(void.class, Class.class, Object.class));
+            final MethodHandle descriptor = lookup.findConstructor(descriptorClass, MethodType.methodType(void.class, Class.class, String.class, List.class));
+            final Class<?> label = Class.forName("jdk.jfr.Label");
+            final List<Object> annotations = Arrays.asList(
+                    annotation.invoke(Class.forName("jdk.jfr.Name"), NAME),
+                    annotation.invoke(label, "Format"),
+                    annotation.invoke(Class.forName("jdk.jfr.Category"), new String[]{"VarFormatter"}),
+                    annotation.invoke(Class.forName("jdk.jfr.Description"), "An outermost formatting call")
+            );
+            // 字段的顺序与 commit 中 set 的下标一一对应
+            final List<Object> fields = Arrays.asList(
+                    descriptor.invoke(String.class, "formatter", Collections.singletonList(annotation.invoke(label, "Formatter"))),
+                    descriptor.invoke(Class.class, "rootClass", Collections.singletonList(annotation.invoke(label, "Root Class"))),
+                    descriptor.invoke(long.class, "bytes", Arrays.asList(annotation.invoke(label, "Bytes"), annotation.invoke(Class.forName("jdk.jfr.DataAmount"), "BYTES"))),
+                    descriptor.invoke(long.class, "chars", Collections.singletonList(annotation.invoke(label, "Chars"))),
+                    descriptor.invoke(int.class, "depth", Collections.singletonList(annotation.invoke(label, "Depth"))),
+                    descriptor.invoke(long.class, "objects", Collections.singletonList(annotation.invoke(label, "Objects")))
+            );
+            final Object factory = lookup.findStatic(factoryClass, "create", MethodType.methodType(factoryClass, List.class, List.class)).invoke(annotations, fields);
+            final MethodType voidType = MethodType.methodType(void.class, Object.class);
+            newEvent = lookup.findVirtual(factoryClass, "newEvent", MethodType.methodType(eventClass)).bindTo(factory).asType(MethodType.methodType(Object.class));
+            begin = lookup.findVirtual(eventClass, "begin", MethodType.methodType(void.class)).asType(voidType);
+            end = lookup.findVirtual(eventClass, "end", MethodType.methodType(void.class)).asType(voidType);
+            shouldCommit = lookup.findVirtual(eventClass, "shouldCommit", MethodType.methodType(boolean.class)).asType(MethodType.methodType(boolean.class, Object.class));
+            set = lookup.findVirtual(eventClass, "set", MethodType.methodType(void.class, int.class, Object.class)).asType(MethodType.methodType(void.class, Object.class, int.class, Object.class));
+            commit = lookup.findVirtual(eventClass, "commit", MethodType.methodType(void.class)).asType(voidType);
+        } catch (Throwable e) {
+            // 运行环境中没有 JFR
+            newEvent = null;
+        }
+        NEW_EVENT = newEvent;
+        BEGIN = begin;
+        END = end;
+        SHOULD_COMMIT = shouldCommit;
+        SET = set;
+        COMMIT = commit;
+    }
+
+    private FormatEvents() {
+    }
+
+    /**
+     * @return 当前的运行环境是否支持 JFR 事件
+     */
+    static boolean isAvailable() {
+        return NEW_EVENT != null;
+    }
+
+    /**
+     * 创建并开始一个事件。
+     *
+     * @return 开始计时的事件，运行环境不支持时返回 null
+     */
+    static Object begin() {
+        if (NEW_EVENT == null) {
+            return null;
+        }
+        try {
+            final Object event = (Object) NEW_EVENT.invokeExact();
+            BEGIN.invokeExact(event);
+            return event;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * 结束一个事件，如果有记录启用了此事件，则填充数据并提交。
+     *
+     * @param event     {@link #begin()} 返回的事件
+     * @param formatter 格式化组件类型的名字
+     * @param rootClass 根对象的类
+     * @param bytes     写入到 UTF-8 字节输出流中的字节数量
+     * @param chars     以字符串形式返回或者写入到字符输出流中的字符数量
+     * @param depth     通过字段访问器读取的对象的最大嵌套深度
+     * @param objects   通过字段访问器读取的对象数量
+     */
+    static void commit(Object event, String formatter, Class<?> rootClass, long bytes, long chars, int depth, long objects) {
+        try {
+            END.invokeExact(event);
+            if (!(boolean) SHOULD_COMMIT.invokeExact(event)) {
+                return;
+            }
+            SET.invokeExact(event, 0, (Object) formatter);
+            SET.invokeExact(event, 1, (Object) rootClass);
+            SET.invokeExact(event, 2, (Object) bytes);
+            SET.invokeExact(event, 3, (Object) chars);
+            SET.invokeExact(event, 4, (Object) depth);
+            SET.invokeExact(event, 5, (Object) objects);
+            COMMIT.invokeExact(event);
+        } catch (Throwable ignored) {
+            // 事件只用于诊断 不影响格式化的结果
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package top.lingyuzhao.varFormatter.core;
+
+import top.lingyuzhao.varFormatter.utils.Utf8Sink;
+
+import java.util.function.Function;
+
+/**
+ * 格式化计划，针对某一个类与某一个格式化组件预先生成好的格式化步骤，每一个字段的名字相关的字符串都会在生成计划的时候被计算并编码好，格式化时只需要读取字段并写入预先生成的字符串即可。
+ * <p>
+ * Format plan, the formatting steps generated in advance for one class and one formatter. All strings related to the name of every field are computed and encoded when the plan is built, so formatting only has to read the fields and write the pre-generated strings.
+ * <p>
+ * 计划中的字符串是通过调用格式化组件的名字函数生成的，因此此计划要求名字函数只会根据 Map 与 Collection 类型的值产生不同的结果，对于这两种类型的值会回退到原本的格式化逻辑。
+ * <p>
+ * The strings in the plan are produced by calling the name functions of the formatter, so the plan requires that name functions only vary for Map and Collection values. Those values fall back to the regular formatting logic.
+ *
+ * @author zhao
+ */
+final class FormatPlan {
+
+    /**
+     * 无法生成计划的类对应的标记，使用此标记的类会直接使用反射的格式化逻辑。
+     * <p>
+     * Marker for classes whose plan could not be generated, these classes use the reflective formatting logic.
+     */
+    static final FormatPlan UNSUPPORTED = new FormatPlan(new FieldAccessor[0], new Utf8Sink.Token[0], new Utf8Sink.Token[0]);
+
+    private final FieldAccessor[] accessors;
+    private final Utf8Sink.Token[] starts;
+    private final Utf8Sink.Token[] ends;
+
+    private FormatPlan(FieldAccessor[] accessors, Utf8Sink.Token[] starts, Utf8Sink.Token[] ends) {
+        this.accessors = accessors;
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * 生成一个类的格式化计划。
+     *
+     * @param type  需要生成计划的类
+     * @param start 字段起始字符串的生成函数
+     * @param end   字段结尾字符串的生成函数，字段之间的分隔符不属于结尾字符串
+     * @return 格式化计划，如果无法生成则返回 {@link #UNSUPPORTED}
+     */
+    static FormatPlan of(Class<?> type, Function<String, String> start, Function<String, String> end) {
+        try {
+            final FieldAccessor[] accessors = StructuralCache.getAccessors(type);
+            final int length = accessors.length;
+            final Utf8Sink.Token[] starts = new Utf8Sink.Token[length];
+            final Utf8Sink.Token[] ends = new Utf8Sink.Token[length];
+            for (int i = 0; i < length; i++) {
+                final String name = accessors[i].getName();
+                starts[i] = Utf8Sink.Token.of(start.apply(name));
+                ends[i] = Utf8Sink.Token.of(end.apply(name));
+            }
+            return new FormatPlan(accessors, starts, ends);
+        } catch (RuntimeException e) {
+            // 无法访问的字段等情况 回退到反射的格式化逻辑
+            return UNSUPPORTED;
+        }
+    }
+
+    /**
+     * @return 计划中的所有字段访问器
+     */
+    FieldAccessor[] getAccessors() {
+        return accessors;
+    }
+
+    /**
+     * @param index 字段的索引
+     * @return 字段的起始字符串
+     */
+    Utf8Sink.Token getStart(int index) {
+        return starts[index];
+    }
+
+    /**
+     * @param index 字段的索引
+     * @return 字段的结尾字符串
+     */
+    Utf8Sink.Token getEnd(int index) {
+        return ends[index];
+    }
+}
@@ -1,9 +1,23 @@
 package top.lingyuzhao.varFormatter.core;
 
 
+import top.lingyuzhao.varFormatter.utils.Utf8Sink;
+
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 /**
  * 格式化器对象，此类能够直接作用在数据上，能够进行格式化操作，您可以通过 VarFormatter.getFormatter() 获取一个格式化器对象。
@@ -14,6 +28,14 @@ import java.util.Map;
  */
 public interface Formatter extends Cloneable {
 
+    /**
+     * 批量格式化时整批数据的默认名字
+     * <p>
+     * The default name of a batch when formatting many records
+     */
+    String DEFAULT_BATCH_NAME = "list";
+
+
     /**
      * @return 当前格式化组件的型号，同时也是能够进行格式化的数据的类型。
      * <p>
@@ -116,6 +138,279 @@ public interface Formatter extends Cloneable {
      */
     void formatToStream(Collection<?> data, String name, PrintWriter printWriter);
 
+    /**
+     * 将一个对象进行格式化操作，并将结果以 UTF-8 字节的形式直接写入到 OutputStream 中，不会经过 PrintWriter 的字符缓冲与额外的编码过程。
+     * <p>
+     * Format an object and write the result as UTF-8 bytes straight into an OutputStream, without PrintWriter's char buffering and a separate encoding pass.
+     *
+     * @param data         要格式化的对象，可以是 Map Collection 或者任意的对象
+     *                     <p>
+     *                     Object to format, which can be a Map, a Collection or any object
+     * @param outputStream 转换结果的字节输出流，此函数执行完毕后会刷新但不会关闭此流！
+     *                     <p>
+     *                     The byte output stream of the conversion result, it is flushed but not closed by this function!
+     */
+    default void formatToStream(Object data, OutputStream outputStream) {
+        final Utf8Sink sink = Utf8Sink.of(outputStream);
+        this.formatToStream(data, sink);
+        sink.flush();
+        sink.rethrowError();
+    }
+
+    /**
+     * 将一个对象进行格式化操作，并将结果以 UTF-8 字节的形式直接写入到 ByteBuffer 中，支持堆内与直接内存的 ByteBuffer。
+     * <p>
+     * Format an object and write the result as UTF-8 bytes straight into a ByteBuffer, both heap and direct buffers are supported.
+     *
+     * @param data       要格式化的对象，可以是 Map Collection 或者任意的对象
+     *                   <p>
+     *                   Object to format, which can be a Map, a Collection or any object
+     * @param byteBuffer 转换结果的字节缓冲区，如果剩余空间不足会抛出 BufferOverflowException！
+     *                   <p>
+     *                   The byte buffer of the conversion result, BufferOverflowException is thrown if the remaining space is insufficient!
+     */
+    default void formatToStream(Object data, ByteBuffer byteBuffer) {
+        final Utf8Sink sink = Utf8Sink.of(byteBuffer);
+        this.formatToStream(data, sink);
+        sink.flush();
+        sink.rethrowError();
+    }
+
+    /**
+     * 将一个对象进行格式化操作，并将结果以 UTF-8 字节的形式直接写入到 WritableByteChannel 中。
+     * <p>
+     * Format an object and write the result as UTF-8 bytes straight into a WritableByteChannel.
+     *
+     * @param data    要格式化的对象，可以是 Map Collection 或者任意的对象
+     *                <p>
+     *                Object to format, which can be a Map, a Collection or any object
+     * @param channel 转换结果的字节通道，此函数执行完毕后不会关闭此通道！
+     *                <p>
+     *                The byte channel of the conversion result, it is not closed by this function!
+     */
+    default void formatToStream(Object data, WritableByteChannel channel) {
+        final Utf8Sink sink = Utf8Sink.of(channel);
+        this.formatToStream(data, sink);
+        sink.flush();
+        sink.rethrowError();
+    }
+
+    /**
+     * 将一个对象进行格式化操作，并将结果以 UTF-8 字节的形式通过 FileChannel 写入到文件中，文件已经存在时会被覆盖，写入的方式由格式化组件的文件写入配置决定。
+     * <p>
+     * Format an object and write the result as UTF-8 bytes into a file through a FileChannel. An existing file is overwritten, how the file is written is decided by the file settings of the formatter.
+     * <p>
+     * 默认实现使用 {@link Utf8Sink#of(FileChannel, int, boolean)} 批量写入文件。
+     * <p>
+     * The default implementation writes the file in batches through {@link Utf8Sink#of(FileChannel, int, boolean)}.
+     *
+     * @param data 要格式化的对象，可以是 Map Collection 或者任意的对象
+     *             <p>
+     *             Object to format, which can be a Map, a Collection or any object
+     * @param path 需要被写入的文件路径
+     *             <p>
+     *             The path of the file to write
+     * @throws java.io.UncheckedIOException 文件写入失败
+     *                                      <p>
+     *                                      Writing the file failed
+     */
+    default void formatToFile(Object data, Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final Utf8Sink sink = Utf8Sink.of(channel, Utf8Sink.DEFAULT_BUFFER_SIZE, false);
+            this.formatToStream(data, sink);
+            sink.close();
+            sink.rethrowError();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 在格式化组件的默认线程池中异步的格式化一个对象，默认线程池在 Java 21 及以上的运行环境中使用虚拟线程。格式化完成之前不应该修改被格式化的数据。
+     * <p>
+     * Format an object asynchronously on the default executor of the formatter, which uses virtual threads on Java 21 and later. The data should not be modified before formatting completes.
+     *
+     * @param data 要格式化的对象，可以是 Map Collection 或者任意的对象
+     *             <p>
+     *             Object to format, which can be a Map, a Collection or any object
+     * @return 格式化完成之后得到结果的 CompletableFuture
+     * <p>
+     * A CompletableFuture completed with the formatted result
+     */
+    default CompletableFuture<String> formatAsync(Object data) {
+        return this.formatAsync(data, AsyncExecutors.defaultExecutor());
+    }
+
+    /**
+     * 在指定的线程池中异步的格式化一个对象。格式化完成之前不应该修改被格式化的数据。
+     * <p>
+     * Format an object asynchronously on the given executor. The data should not be modified before formatting completes.
+     *
+     * @param data     要格式化的对象，可以是 Map Collection 或者任意的对象
+     *                 <p>
+     *                 Object to format, which can be a Map, a Collection or any object
+     * @param executor 执行格式化操作的线程池
+     *                 <p>
+     *                 The executor running the formatting
+     * @return 格式化完成之后得到结果的 CompletableFuture
+     * <p>
+     * A CompletableFuture completed with the formatted result
+     */
+    default CompletableFuture<String> formatAsync(Object data, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> this.format(data), executor);
+    }
+
+    /**
+     * 在指定的线程池中异步的将一个对象格式化到数据流中，数据流会在格式化完成之后被刷新但不会被关闭，完成之前调用者不应该使用此数据流。
+     * <p>
+     * Format an object asynchronously into a stream on the given executor. The stream is flushed but not closed once formatting completes, and the caller should not use it before that.
+     *
+     * @param data        要格式化的对象，可以是 Map Collection 或者任意的对象
+     *                    <p>
+     *                    Object to format, which can be a Map, a Collection or any object
+     * @param printWriter 转换结果的数据输出流
+     *                    <p>
+     *                    The data output stream of the conversion result
+     * @param executor    执行格式化操作的线程池
+     *                    <p>
+     *                    The executor running the formatting
+     * @return 数据被完整写入之后完成的 CompletableFuture
+     * <p>
+     * A CompletableFuture completed once the data has been written
+     */
+    default CompletableFuture<Void> formatAsync(Object data, PrintWriter printWriter, Executor executor) {
+        return CompletableFuture.runAsync(() -> {
+            this.formatToStream(data, printWriter);
+            printWriter.flush();
+            if (printWriter instanceof Utf8Sink) {
+                ((Utf8Sink) printWriter).rethrowError();
+            }
+        }, executor);
+    }
+
+    /**
+     * 在指定的线程池中异步的将一个对象格式化到文件中，写入的方式与 {@link #formatToFile(Object, Path)} 一致。
+     * <p>
+     * Format an object asynchronously into a file on the given executor, the file is written the same way as {@link #formatToFile(Object, Path)}.
+     *
+     * @param data     要格式化的对象，可以是 Map Collection 或者任意的对象
+     * @param path     需要被写入的文件路径
+     * @param executor 执行格式化操作的线程池
+     * @return 文件被完整写入之后完成的 CompletableFuture，写入失败时会以 UncheckedIOException 异常完成
+     * <p>
+     * A CompletableFuture completed once the file is written, completed exceptionally with an UncheckedIOException when writing fails
+     */
+    default CompletableFuture<Void> formatToFileAsync(Object data, Path path, Executor executor) {
+        return CompletableFuture.runAsync(() -> this.formatToFile(data, path), executor);
+    }
+
+    /**
+     * 将多条记录格式化到同一个数据流中，每一种格式会使用其自然的分隔方式，例如 JSON 为每行一条记录，YAML 使用 `---` 分隔文档，XML 与 HTML 会将所有记录作为同一个根节点的子节点，记录会被逐条写入，不会在内存中累积。
+     * <p>
+     * Format many records into one stream, every format uses its natural framing: one record per line for JSON, `---` separated documents for YAML, and children of a single root node for XML and HTML. Records are written one by one and never accumulated in memory.
+     * <p>
+     * 默认实现会将每一条记录通过 {@link #formatToStream(Object, PrintWriter)} 写入为一行。
+     * <p>
+     * The default implementation writes every record as one line through {@link #formatToStream(Object, PrintWriter)}.
+     *
+     * @param data        需要被格式化的记录
+     *                    <p>
+     *                    The records to format
+     * @param name        整批数据的名字，XML 与 HTML 会将其作为根节点的名字，其它格式可能不会使用
+     *                    <p>
+     *                    The name of the batch, XML and HTML use it as the root node name, other formats may ignore it
+     * @param printWriter 转换结果的数据输出流
+     *                    <p>
+     *                    The data output stream of the conversion result
+     */
+    default void formatAll(Iterator<?> data, String name, PrintWriter printWriter) {
+        while (data.hasNext()) {
+            this.formatToStream(data.next(), printWriter);
+            printWriter.write('\n');
+        }
+    }
+
+    /**
+     * 将多条记录格式化到同一个数据流中，整批数据的名字为 {@link #DEFAULT_BATCH_NAME}。
+     * <p>
+     * Format many records into one stream, the batch is named {@link #DEFAULT_BATCH_NAME}.
+     *
+     * @param data        需要被格式化的记录
+     * @param printWriter 转换结果的数据输出流
+     */
+    default void formatAll(Iterable<?> data, PrintWriter printWriter) {
+        this.formatAll(data.iterator(), DEFAULT_BATCH_NAME, printWriter);
+    }
+
+    /**
+     * 将一个数据流中的所有记录格式化到同一个数据流中，整批数据的名字为 {@link #DEFAULT_BATCH_NAME}，此函数不会关闭 Stream。
+     * <p>
+     * Format every record of a Stream into one stream, the batch is named {@link #DEFAULT_BATCH_NAME}. The Stream is not closed by this function.
+     *
+     * @param data        需要被格式化的记录
+     * @param printWriter 转换结果的数据输出流
+     */
+    default void formatAll(Stream<?> data, PrintWriter printWriter) {
+        this.formatAll(data.iterator(), DEFAULT_BATCH_NAME, printWriter);
+    }
+
+    /**
+     * 将多条记录以 UTF-8 字节的形式格式化到同一个 OutputStream 中，整批数据共用同一个编码器与缓冲区，此函数执行完毕后会刷新但不会关闭此流。
+     * <p>
+     * Format many records as UTF-8 bytes into one OutputStream. The whole batch shares one encoder and buffer, the stream is flushed but not closed by this function.
+     *
+     * @param data         需要被格式化的记录
+     * @param name         整批数据的名字
+     * @param outputStream 转换结果的字节输出流
+     */
+    default void formatAll(Iterator<?> data, String name, OutputStream outputStream) {
+        final Utf8Sink sink = Utf8Sink.of(outputStream);
+        this.formatAll(data, name, sink);
+        sink.flush();
+        sink.rethrowError();
+    }
+
+    /**
+     * 将多条记录以 UTF-8 字节的形式格式化到同一个 WritableByteChannel 中，整批数据共用同一个编码器与缓冲区，此函数执行完毕后不会关闭此通道。
+     * <p>
+     * Format many records as UTF-8 bytes into one WritableByteChannel. The whole batch shares one encoder and buffer, the channel is not closed by this function.
+     *
+     * @param data    需要被格式化的记录
+     * @param name    整批数据的名字
+     * @param channel 转换结果的字节通道
+     */
+    default void formatAll(Iterator<?> data, String name, WritableByteChannel channel) {
+        final Utf8Sink sink = Utf8Sink.of(channel);
+        this.formatAll(data, name, sink);
+        sink.flush();
+        sink.rethrowError();
+    }
+
+    /**
+     * 将多条记录以 UTF-8 字节的形式通过 FileChannel 格式化到同一个文件中，文件已经存在时会被覆盖，写入的方式由格式化组件的文件写入配置决定。
+     * <p>
+     * Format many records as UTF-8 bytes into one file through a FileChannel. An existing file is overwritten, how the file is written is decided by the file settings of the formatter.
+     * <p>
+     * 默认实现使用 {@link Utf8Sink#of(FileChannel, int, boolean)} 批量写入文件。
+     * <p>
+     * The default implementation writes the file in batches through {@link Utf8Sink#of(FileChannel, int, boolean)}.
+     *
+     * @param data 需要被格式化的记录
+     * @param name 整批数据的名字
+     * @param path 需要被写入的文件路径
+     * @throws java.io.UncheckedIOException 文件写入失败
+     */
+    default void formatAll(Iterator<?> data, String name, Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final Utf8Sink sink = Utf8Sink.of(channel, Utf8Sink.DEFAULT_BUFFER_SIZE, false);
+            this.formatAll(data, name, sink);
+            sink.close();
+            sink.rethrowError();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
 
     /**
      * 格式化一个 Map 对象，会自动的将其中的 key 和 value 按照一定的格式进行解析和计算，获取到最终结果。
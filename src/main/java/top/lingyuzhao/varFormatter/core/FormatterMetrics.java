@@ -0,0 +1,556 @@
+package top.lingyuzhao.varFormatter.core;
+
+import top.lingyuzhao.varFormatter.utils.Utf8Sink;
+import top.lingyuzhao.varFormatter.utils.WriterPool;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 格式化组件的运行统计，默认是关闭的，关闭时每一次格式化调用只会多读取一个静态字段。统计数据使用 LongAdder 分段累加，多个线程同时格式化时不会互相竞争。
+ * <p>
+ * Runtime statistics of the formatters. They are off by default, and when off every formatting call only reads one extra static field. Counters are striped LongAdders, so threads formatting at the same time do not contend on them.
+ * <p>
+ * 通过 {@link #registerMBeans()} 可以将每一种格式化组件类型以及结构缓冲池的统计数据注册到平台的 MBeanServer 中，名字为 `top.lingyuzhao.varFormatter:type=Formatter,name=JSON` 与 `top.lingyuzhao.varFormatter:type=Cache,name=StructuralCache` 这样的格式。
+ * <p>
+ * {@link #registerMBeans()} registers the statistics of every formatter type and of the structure caches with the platform MBeanServer, under names such as `top.lingyuzhao.varFormatter:type=Formatter,name=JSON` and `top.lingyuzhao.varFormatter:type=Cache,name=StructuralCache`.
+ * <p>
+ * 通过 {@link #setEventsEnabled(boolean)} 可以为每一次最外层的格式化调用提交一个名为 `top.lingyuzhao.varFormatter.Format` 的 JDK Flight Recorder 事件，事件中包含耗时、根对象的类、输出的数据量以及对象的嵌套深度。
+ * <p>
+ * {@link #setEventsEnabled(boolean)} commits a JDK Flight Recorder event named `top.lingyuzhao.varFormatter.Format` for every outermost formatting call, carrying its duration, the class of the root object, the amount of output and the nesting depth of the objects.
+ *
+ * @author zhao
+ */
+public final class FormatterMetrics {
+
+    /**
+     * MBean 名字的域
+     */
+    private static final String DOMAIN = "top.lingyuzhao.varFormatter";
+
+    /**
+     * 是否启用统计，这里不使用 volatile，开关的变化允许延迟一段时间之后才在其它线程中生效。
+     */
+    static boolean enabled;
+
+    /**
+     * 是否需要在格式化调用中进行任何的记录，统计、JFR 事件以及采样分析中任意一个启用时为 true，格式化过程中只检查这一个字段。
+     */
+    static boolean active;
+
+    /**
+     * 是否提交 JFR 事件
+     */
+    private static boolean events;
+
+    /**
+     * 每一种格式化组件类型的统计数据，下标是类型的序号。
+     */
+    private static final Stats[] STATS = new Stats[VarFormatter.values().length];
+
+    /**
+     * 当前线程中正在进行的最外层格式化调用。
+     */
+    private static final ThreadLocal<Call> CURRENT = ThreadLocal.withInitial(Call::new);
+
+    static {
+        for (int i = 0; i < STATS.length; i++) {
+            STATS[i] = new Stats();
+        }
+    }
+
+    private FormatterMetrics() {
+    }
+
+    /**
+     * @return 是否启用了统计
+     * <p>
+     * Whether statistics are enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 设置是否启用统计，关闭之后已经统计的数据会被保留。
+     * <p>
+     * Set whether statistics are enabled, the data collected so far is kept when they are disabled.
+     *
+     * @param enabled 是否启用统计
+     *                <p>
+     *                Whether statistics are enabled
+     */
+    public static void setEnabled(boolean enabled) {
+        FormatterMetrics.enabled = enabled;
+        refresh();
+    }
+
+    /**
+     * @return 是否会为格式化调用提交 JFR 事件
+     * <p>
+     * Whether JFR events are committed for formatting calls
+     */
+    public static boolean isEventsEnabled() {
+        return events;
+    }
+
+    /**
+     * 设置是否为每一次最外层的格式化调用提交 JFR 事件，事件只有在正在进行的记录中启用了 `top.lingyuzhao.varFormatter.Format` 时才会被写入。
+     * <p>
+     * Set whether a JFR event is committed for every outermost formatting call. Events are only written while a recording has `top.lingyuzhao.varFormatter.Format` enabled.
+     *
+     * @param enabled 是否提交 JFR 事件
+     *                <p>
+     *                Whether JFR events are committed
+     * @return 当前的运行环境是否支持 JFR，不支持时事件不会被启用
+     * <p>
+     * Whether the runtime supports JFR, events stay disabled when it does not
+     */
+    public static boolean setEventsEnabled(boolean enabled) {
+        final boolean available = FormatEvents.isAvailable();
+        events = enabled && available;
+        refresh();
+        return available;
+    }
+
+    /**
+     * 重新计算是否需要在格式化调用中进行记录。
+     */
+    static void refresh() {
+        active = enabled || events || FormatterProfiler.interval > 0;
+    }
+
+    /**
+     * 获取一种格式化组件类型的统计数据。
+     * <p>
+     * Get the statistics of one formatter type.
+     *
+     * @param type 格式化组件类型
+     * @return 此类型的统计数据
+     */
+    public static FormatterStatsMBean getStats(VarFormatter type) {
+        return STATS[type.ordinal()];
+    }
+
+    /**
+     * 启用统计并将所有的统计数据注册到平台的 MBeanServer 中，已经注册过的 MBean 会被跳过。
+     * <p>
+     * Enable statistics and register all of them with the platform MBeanServer, MBeans registered before are skipped.
+     *
+     * @throws IllegalStateException 注册失败
+     */
+    public static void registerMBeans() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (VarFormatter type : VarFormatter.values()) {
+                register(server, new StandardMBean(STATS[type.ordinal()], FormatterStatsMBean.class), formatterName(type));
+            }
+            register(server, new StandardMBean(new CacheStats(true), CacheStatsMBean.class), cacheName("StructuralCache"));
+            register(server, new StandardMBean(new CacheStats(false), CacheStatsMBean.class), cacheName("StructuralNameCache"));
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register formatter MBeans", e);
+        }
+        setEnabled(true);
+    }
+
+    /**
+     * 关闭统计并将所有的统计数据从平台的 MBeanServer 中移除。
+     * <p>
+     * Disable statistics and unregister all of them from the platform MBeanServer.
+     *
+     * @throws IllegalStateException 移除失败
+     */
+    public static void unregisterMBeans() {
+        setEnabled(false);
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (VarFormatter type : VarFormatter.values()) {
+                unregister(server, formatterName(type));
+            }
+            unregister(server, cacheName("StructuralCache"));
+            unregister(server, cacheName("StructuralNameCache"));
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister formatter MBeans", e);
+        }
+    }
+
+    private static ObjectName formatterName(VarFormatter type) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Formatter,name=" + type.name());
+    }
+
+    private static ObjectName cacheName(String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Cache,name=" + name);
+    }
+
+    private static void register(MBeanServer server, StandardMBean bean, ObjectName name) throws JMException {
+        try {
+            server.registerMBean(bean, name);
+        } catch (InstanceAlreadyExistsException ignored) {
+            // 已经注册过了
+        }
+    }
+
+    private static void unregister(MBeanServer server, ObjectName name) throws JMException {
+        try {
+            server.unregisterMBean(name);
+        } catch (InstanceNotFoundException ignored) {
+            // 没有注册过
+        }
+    }
+
+    /**
+     * 开始记录一次格式化调用。
+     *
+     * @param type 格式化组件类型，没有型号的自定义格式化组件不会被记录
+     * @param data 被格式化的根对象
+     * @return 调用的记录对象，如果没有启用任何记录或者这是一个嵌套的调用则返回 null
+     */
+    static Call begin(VarFormatter type, Object data) {
+        if (!active || type == null) {
+            return null;
+        }
+        final Call call = CURRENT.get();
+        if (call.type != null) {
+            return null;
+        }
+        call.type = type;
+        call.root = data == null ? null : data.getClass();
+        call.objects = 0;
+        call.fields = 0;
+        call.depth = 0;
+        call.maxDepth = 0;
+        call.startBytes = -1;
+        call.sink = null;
+        call.counter = null;
+        final int interval = FormatterProfiler.interval;
+        call.sampled = interval > 0 && ++call.sequence % interval == 0;
+        call.event = events ? FormatEvents.begin() : null;
+        call.tracing = call.sampled || call.event != null;
+        call.start = System.nanoTime();
+        return call;
+    }
+
+    /**
+     * 开始记录一次写入到数据流中的格式化调用，数据流是 UTF-8 字节输出流时会统计写入的字节数量，其它的数据流会被包装起来统计写入的字符数量，此时需要将格式化的结果写入到 {@link Call#writer()} 中。
+     *
+     * @param type        格式化组件类型
+     * @param data        被格式化的根对象
+     * @param printWriter 转换结果的数据输出流
+     * @return 调用的记录对象，如果没有启用任何记录或者这是一个嵌套的调用则返回 null
+     */
+    static Call begin(VarFormatter type, Object data, PrintWriter printWriter) {
+        final Call call = begin(type, data);
+        if (call == null) {
+            return null;
+        }
+        if (printWriter instanceof Utf8Sink) {
+            call.startBytes = ((Utf8Sink) printWriter).getByteCount();
+            call.sink = printWriter;
+        } else {
+            call.counter = new CountingWriter(printWriter);
+            call.sink = call.counter;
+        }
+        return call;
+    }
+
+    /**
+     * 记录一个通过字段访问器读取的对象。
+     *
+     * @param fields 对象中的字段数量
+     */
+    static void visit(int fields) {
+        final Call call = CURRENT.get();
+        if (call.type != null) {
+            call.objects++;
+            call.fields += fields;
+        }
+    }
+
+    /**
+     * 进入一个对象的字段，用来记录对象的嵌套深度，返回值不为 null 时格式化完字段之后需要调用 {@link Call#exit()}。
+     *
+     * @return 需要记录深度或者采样的调用，否则返回 null
+     */
+    static Call enter() {
+        final Call call = CURRENT.get();
+        if (!call.tracing) {
+            return null;
+        }
+        if (++call.depth > call.maxDepth) {
+            call.maxDepth = call.depth;
+        }
+        return call;
+    }
+
+    /**
+     * 获取一个数据流中已经写入的数据量，UTF-8 字节输出流返回字节数量，缓冲池中的字符串输出流以及统计字符数量的数据流返回字符数量。
+     *
+     * @param printWriter 数据输出流
+     * @return 已经写入的数据量，无法获取时返回 -1
+     */
+    static long positionOf(PrintWriter printWriter) {
+        if (printWriter instanceof Utf8Sink) {
+            return ((Utf8Sink) printWriter).getByteCount();
+        }
+        if (printWriter instanceof CountingWriter) {
+            return ((CountingWriter) printWriter).count;
+        }
+        return WriterPool.lengthOf(printWriter);
+    }
+
+    /**
+     * 一次最外层格式化调用的记录，每一个线程复用同一个对象，嵌套调用中的数据会先累加在这里，调用结束之后一次性的写入到 LongAdder、JFR 事件与采样数据中。
+     */
+    static final class Call {
+        private VarFormatter type;
+        private Class<?> root;
+        private long start;
+        private long startBytes;
+        private PrintWriter sink;
+        private CountingWriter counter;
+        private long objects;
+        private long fields;
+        private int depth;
+        private int maxDepth;
+        private int sequence;
+        private boolean sampled;
+        private boolean tracing;
+        private Object event;
+
+        /**
+         * 每一层嵌套中正在格式化的字段开始时数据流中的数据量，下标是嵌套深度。
+         */
+        private long[] marks = new long[8];
+
+        /**
+         * @return 此次调用是否被采样，被采样的调用会记录每一个字段的耗时与数据量
+         */
+        boolean isSampled() {
+            return sampled;
+        }
+
+        /**
+         * @return 此次写入到数据流中的调用需要写入的数据流，UTF-8 字节输出流会被直接返回，其它的数据流会被包装为统计字符数量的数据流
+         */
+        PrintWriter writer() {
+            return sink;
+        }
+
+        /**
+         * 开始格式化一个字段，只应该在被采样的调用中使用。
+         *
+         * @param printWriter 字段被写入的数据流
+         * @return 开始的时间
+         */
+        long fieldStart(PrintWriter printWriter) {
+            if (depth >= marks.length) {
+                marks = Arrays.copyOf(marks, depth << 1);
+            }
+            marks[depth] = positionOf(printWriter);
+            return System.nanoTime();
+        }
+
+        /**
+         * 结束格式化一个字段，字段的耗时与数据量包含了其中嵌套的所有数据。
+         *
+         * @param type        字段所属的类
+         * @param name        字段的名字
+         * @param start       {@link #fieldStart(PrintWriter)} 返回的开始时间
+         * @param printWriter 字段被写入的数据流
+         */
+        void fieldEnd(Class<?> type, String name, long start, PrintWriter printWriter) {
+            final long nanos = System.nanoTime() - start;
+            final long mark = marks[depth];
+            FormatterProfiler.recordField(type, name, nanos, mark < 0 ? -1 : positionOf(printWriter) - mark);
+        }
+
+        /**
+         * 离开一个对象的字段。
+         */
+        void exit() {
+            depth--;
+        }
+
+        /**
+         * 结束一次以字符串形式返回结果的调用。
+         *
+         * @param result 格式化的结果，调用失败时为 null
+         */
+        void end(String result) {
+            this.end(result == null ? 0 : result.length());
+        }
+
+        /**
+         * 结束一次写入到数据流中的调用。
+         */
+        void end() {
+            this.end(counter == null ? 0 : counter.count);
+        }
+
+        private void end(long chars) {
+            final long nanos = System.nanoTime() - start;
+            final long bytes = startBytes < 0 ? 0 : ((Utf8Sink) sink).getByteCount() - startBytes;
+            final VarFormatter type = this.type;
+            this.type = null;
+            this.sink = null;
+            this.counter = null;
+            this.tracing = false;
+            if (enabled) {
+                final Stats stats = STATS[type.ordinal()];
+                stats.calls.increment();
+                stats.totalNanos.add(nanos);
+                stats.maxNanos.accumulate(nanos);
+                if (chars != 0) {
+                    stats.chars.add(chars);
+                }
+                if (startBytes >= 0) {
+                    stats.bytes.add(bytes);
+                }
+                if (objects != 0) {
+                    stats.objects.add(objects);
+                    stats.fields.add(fields);
+                }
+            }
+            if (event != null) {
+                FormatEvents.commit(event, type.name(), root, bytes, chars, maxDepth, objects);
+                event = null;
+            }
+            if (sampled) {
+                FormatterProfiler.recordCall(root, nanos, startBytes < 0 ? chars : bytes);
+            }
+        }
+    }
+
+    /**
+     * 统计写入的字符数量的数据流，所有的字符都会被原样转交给被包装的数据流。
+     */
+    private static final class CountingWriter extends PrintWriter {
+        private long count;
+
+        CountingWriter(PrintWriter out) {
+            super(out, false);
+        }
+
+        @Override
+        public void write(int c) {
+            count++;
+            super.write(c);
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            count += len;
+            super.write(buf, off, len);
+        }
+
+        @Override
+        public void write(String s, int off, int len) {
+            count += len;
+            super.write(s, off, len);
+        }
+    }
+
+    /**
+     * 一种格式化组件类型的统计数据。
+     */
+    private static final class Stats implements FormatterStatsMBean {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder chars = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder objects = new LongAdder();
+        private final LongAdder fields = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        @Override
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        @Override
+        public long getChars() {
+            return chars.sum();
+        }
+
+        @Override
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        @Override
+        public long getObjects() {
+            return objects.sum();
+        }
+
+        @Override
+        public long getFields() {
+            return fields.sum();
+        }
+
+        @Override
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        @Override
+        public void reset() {
+            calls.reset();
+            chars.reset();
+            bytes.reset();
+            objects.reset();
+            fields.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+        }
+    }
+
+    /**
+     * 结构缓冲池的统计数据，直接读取缓冲池中一直在统计的命中、未命中与淘汰次数。
+     */
+    private static final class CacheStats implements CacheStatsMBean {
+        private final boolean structure;
+
+        CacheStats(boolean structure) {
+            this.structure = structure;
+        }
+
+        @Override
+        public long getHitCount() {
+            return structure ? StructuralCache.getHitCount() : StructuralNameCache.getHitCount();
+        }
+
+        @Override
+        public long getMissCount() {
+            return structure ? StructuralCache.getMissCount() : StructuralNameCache.getMissCount();
+        }
+
+        @Override
+        public long getCachedClasses() {
+            return structure ? StructuralCache.size() : StructuralNameCache.size();
+        }
+
+        @Override
+        public long getEvictionCount() {
+            return structure ? StructuralCache.getEvictionCount() : StructuralNameCache.getEvictionCount();
+        }
+
+        @Override
+        public int getMaxSize() {
+            return structure ? StructuralCache.getMaxSize() : StructuralNameCache.getMaxSize();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package top.lingyuzhao.varFormatter.core;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 格式化的采样分析器，启用之后每 N 次最外层的格式化调用中会有一次被采样，被采样的调用会记录每一个类中每一个字段的格式化耗时与输出的数据量，用来在生产环境中找到拖慢格式化的类与字段，不需要额外连接外部的分析工具。
+ * <p>
+ * Sampling profiler of the formatters. Once enabled one out of every N outermost formatting calls is sampled, and a sampled call records the formatting time and output size of every field of every class. It finds the classes and fields that slow formatting down in production without attaching an external profiler.
+ * <p>
+ * 字段的耗时与数据量包含了字段中嵌套的所有数据，数据量在写入 UTF-8 字节输出流时是字节数量，在以字符串形式返回结果或者写入到其它数据流时是字符数量。目前 JSON、XML 与 YAML 格式化组件会记录字段，其它的格式化组件只记录根对象，并行格式化时在其它线程中格式化的字段不会被记录。
+ * <p>
+ * Field time and size include everything nested in the field. Size is in bytes when writing into a UTF-8 byte sink and in chars when the result is returned as a String or written into any other stream. The JSON, XML and YAML formatters record fields, other formatters only record the root object, and fields formatted on other threads during parallel formatting are not recorded.
+ *
+ * @author zhao
+ */
+public final class FormatterProfiler {
+
+    /**
+     * 采样间隔，0 代表不进行采样，这里不使用 volatile，开关的变化允许延迟一段时间之后才在其它线程中生效。
+     */
+    static int interval;
+
+    /**
+     * 每一个类的采样数据，类是弱引用的，不会阻止类被卸载。
+     */
+    private static final Map<Class<?>, ClassProfile> PROFILES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private FormatterProfiler() {
+    }
+
+    /**
+     * @return 采样间隔，0 代表没有启用采样
+     * <p>
+     * The sample interval, 0 means sampling is disabled
+     */
+    public static int getSampleInterval() {
+        return interval;
+    }
+
+    /**
+     * 设置采样间隔，每一个线程中每 interval 次最外层的格式化调用会有一次被采样，设置为 1 代表采样所有的调用，设置为 0 代表关闭采样，关闭之后已经采样的数据会被保留。
+     * <p>
+     * Set the sample interval. One out of every interval outermost formatting calls on each thread is sampled, 1 samples every call and 0 disables sampling. The data collected so far is kept when sampling is disabled.
+     *
+     * @param interval 采样间隔
+     *                 <p>
+     *                 The sample interval
+     */
+    public static void setSampleInterval(int interval) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("interval must not be negative: " + interval);
+        }
+        FormatterProfiler.interval = interval;
+        FormatterMetrics.refresh();
+    }
+
+    /**
+     * 清空所有的采样数据。
+     * <p>
+     * Clear all sampled data.
+     */
+    public static void reset() {
+        PROFILES.clear();
+    }
+
+    /**
+     * 将采样数据以文本表格的形式输出，类按照耗时从高到低排序，每一个类中的字段也按照耗时从高到低排序。
+     * <p>
+     * Write the sampled data as a text table. Classes are sorted by time from high to low, and so are the fields inside every class.
+     *
+     * @param printWriter 采样数据的输出流
+     *                    <p>
+     *                    The stream to write the sampled data into
+     */
+    public static void dump(PrintWriter printWriter) {
+        final List<Map.Entry<Class<?>, ClassProfile>> classes;
+        synchronized (PROFILES) {
+            classes = new ArrayList<>(PROFILES.entrySet());
+        }
+        classes.sort(Comparator.comparingLong((Map.Entry<Class<?>, ClassProfile> e) -> e.getValue().nanos()).reversed());
+        printWriter.printf("%-48s %10s %14s %12s%n", "class / field", "count", "nanos", "size");
+        for (Map.Entry<Class<?>, ClassProfile> entry : classes) {
+            final ClassProfile profile = entry.getValue();
+            final long roots = profile.calls.sum();
+            if (roots != 0) {
+                printWriter.printf("%-48s %10d %14d %12d%n", entry.getKey().getName() + " (root)", roots, profile.callNanos.sum(), profile.callSize.sum());
+            } else {
+                printWriter.printf("%-48s%n", entry.getKey().getName());
+            }
+            final List<Map.Entry<String, FieldProfile>> fields = new ArrayList<>(profile.fields.entrySet());
+            fields.sort(Comparator.comparingLong((Map.Entry<String, FieldProfile> e) -> e.getValue().nanos.sum()).reversed());
+            for (Map.Entry<String, FieldProfile> field : fields) {
+                final FieldProfile value = field.getValue();
+                printWriter.printf("  %-46s %10d %14d %12d%n", field.getKey(), value.count.sum(), value.nanos.sum(), value.size.sum());
+            }
+        }
+        printWriter.flush();
+    }
+
+    /**
+     * @return 文本表格形式的采样数据
+     * <p>
+     * The sampled data as a text table
+     * @see #dump(PrintWriter)
+     */
+    public static String dump() {
+        final StringWriter stringWriter = new StringWriter();
+        dump(new PrintWriter(stringWriter));
+        return stringWriter.toString();
+    }
+
+    /**
+     * 记录一次被采样的格式化调用。
+     *
+     * @param root  根对象的类，为 null 时不记录
+     * @param nanos 调用的耗时
+     * @param size  输出的数据量
+     */
+    static void recordCall(Class<?> root, long nanos, long size) {
+        if (root == null) {
+            return;
+        }
+        final ClassProfile profile = PROFILES.computeIfAbsent(root, k -> new ClassProfile());
+        profile.calls.increment();
+        profile.callNanos.add(nanos);
+        profile.callSize.add(size);
+    }
+
+    /**
+     * 记录一个字段的格式化。
+     *
+     * @param type  字段所属的类，为 null 时不记录
+     * @param name  字段的名字
+     * @param nanos 字段的格式化耗时
+     * @param size  字段输出的数据量，无法获取时为负数
+     */
+    static void recordField(Class<?> type, String name, long nanos, long size) {
+        if (type == null) {
+            return;
+        }
+        final ClassProfile profile = PROFILES.computeIfAbsent(type, k -> new ClassProfile());
+        final FieldProfile field = profile.fields.computeIfAbsent(name, k -> new FieldProfile());
+        field.count.increment();
+        field.nanos.add(nanos);
+        if (size > 0) {
+            field.size.add(size);
+        }
+    }
+
+    /**
+     * 一个类的采样数据，包含它作为根对象时的调用数据以及它的每一个字段的数据。
+     */
+    private static final class ClassProfile {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder callNanos = new LongAdder();
+        private final LongAdder callSize = new LongAdder();
+        private final Map<String, FieldProfile> fields = new ConcurrentHashMap<>();
+
+        /**
+         * @return 用来排序的耗时，作为根对象的耗时与字段耗时中较大的一个
+         */
+        long nanos() {
+            long sum = 0;
+            for (FieldProfile field : fields.values()) {
+                sum += field.nanos.sum();
+            }
+            return Math.max(sum, callNanos.sum());
+        }
+    }
+
+    /**
+     * 一个字段的采样数据。
+     */
+    private static final class FieldProfile {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder size = new LongAdder();
+    }
+}
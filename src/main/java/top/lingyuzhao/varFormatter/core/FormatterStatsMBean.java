@@ -0,0 +1,71 @@
+package top.lingyuzhao.varFormatter.core;
+
+/**
+ * 一种格式化组件类型的统计数据，会以 JMX MBean 的形式注册，只有在 {@link FormatterMetrics#setEnabled(boolean)} 启用之后才会进行统计。
+ * <p>
+ * Statistics of one formatter type, registered as a JMX MBean. Nothing is counted unless enabled by {@link FormatterMetrics#setEnabled(boolean)}.
+ * <p>
+ * 嵌套的格式化调用会被计入最外层的调用中，并行格式化时在其它线程中读取的对象与字段不会被统计。
+ * <p>
+ * Nested formatting calls are counted as part of the outermost call. Objects and fields read on other threads during parallel formatting are not counted.
+ *
+ * @author zhao
+ */
+public interface FormatterStatsMBean {
+
+    /**
+     * @return 格式化调用的次数
+     * <p>
+     * The number of formatting calls
+     */
+    long getCalls();
+
+    /**
+     * @return 以字符串形式返回结果以及写入到字符输出流中的调用输出的字符数量
+     * <p>
+     * The number of chars produced by calls returning a String or writing into a character stream
+     */
+    long getChars();
+
+    /**
+     * @return 写入到 UTF-8 字节输出流中的调用输出的字节数量
+     * <p>
+     * The number of bytes produced by calls writing into a UTF-8 byte sink
+     */
+    long getBytes();
+
+    /**
+     * @return 通过字段访问器读取过的对象数量
+     * <p>
+     * The number of objects read through field accessors
+     */
+    long getObjects();
+
+    /**
+     * @return 读取过的对象中的字段数量
+     * <p>
+     * The number of fields of the objects read
+     */
+    long getFields();
+
+    /**
+     * @return 所有调用的累计耗时，单位是纳秒
+     * <p>
+     * The cumulative latency of all calls in nanoseconds
+     */
+    long getTotalNanos();
+
+    /**
+     * @return 单次调用的最大耗时，单位是纳秒
+     * <p>
+     * The maximum latency of a single call in nanoseconds
+     */
+    long getMaxNanos();
+
+    /**
+     * 将所有的统计数据清零。
+     * <p>
+     * Reset all statistics to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,81 @@
+package top.lingyuzhao.varFormatter.core;
+
+/**
+ * 编译时生成的结构读取器，由 varFormatter-processor 注解处理器为被 {@link top.lingyuzhao.varFormatter.annotation.Formattable} 标记的类生成，生成的类名为 `类的二进制名字 + $$VarFormatter`。
+ * <p>
+ * Structure reader generated at compile time. The varFormatter-processor annotation processor generates it for classes marked with {@link top.lingyuzhao.varFormatter.annotation.Formattable}, and the generated class is named `binary name of the class + $$VarFormatter`.
+ * <p>
+ * 所有的函数都是通过字段的索引进行访问的，字段的顺序与 {@link #getNames()} 返回的顺序一致。
+ * <p>
+ * All functions are accessed by field index, and the field order is the order returned by {@link #getNames()}.
+ *
+ * @author zhao
+ */
+public interface GeneratedStructure {
+
+    /**
+     * 生成的结构读取器的类名后缀
+     * <p>
+     * The class name suffix of generated structure readers
+     */
+    String SUFFIX = "$$VarFormatter";
+
+    /**
+     * @return 所有字段的名字
+     * <p>
+     * The names of all fields
+     */
+    String[] getNames();
+
+    /**
+     * @return 所有字段的类型编号，取值为 FieldAccessor 中的 KIND 常量
+     * <p>
+     * The kind numbers of all fields, valued as the KIND constants in FieldAccessor
+     */
+    int[] getKinds();
+
+    /**
+     * 读取字段的值，基本数据类型会被装箱。
+     *
+     * @param data  需要被读取的实例
+     * @param index 字段的索引
+     * @return 字段的值
+     */
+    Object get(Object data, int index);
+
+    /**
+     * 读取 byte short int 类型字段的值，不会进行装箱。
+     *
+     * @param data  需要被读取的实例
+     * @param index 字段的索引
+     * @return 字段的值
+     */
+    int getInt(Object data, int index);
+
+    /**
+     * 读取 long 类型字段的值，不会进行装箱。
+     *
+     * @param data  需要被读取的实例
+     * @param index 字段的索引
+     * @return 字段的值
+     */
+    long getLong(Object data, int index);
+
+    /**
+     * 读取 double 类型字段的值，不会进行装箱。
+     *
+     * @param data  需要被读取的实例
+     * @param index 字段的索引
+     * @return 字段的值
+     */
+    double getDouble(Object data, int index);
+
+    /**
+     * 读取 float 类型字段的值，不会进行装箱。
+     *
+     * @param data  需要被读取的实例
+     * @param index 字段的索引
+     * @return 字段的值
+     */
+    float getFloat(Object data, int index);
+}
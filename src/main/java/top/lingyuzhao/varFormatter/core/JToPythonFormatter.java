@@ -1,6 +1,9 @@
 package top.lingyuzhao.varFormatter.core;
 
+import top.lingyuzhao.varFormatter.utils.Escaper;
+import top.lingyuzhao.varFormatter.utils.NumberWriter;
 import top.lingyuzhao.varFormatter.utils.StrUtils;
+import top.lingyuzhao.varFormatter.utils.Utf8Sink;
 
 import java.io.PrintWriter;
 import java.util.Collection;
@@ -15,6 +18,12 @@ public class JToPythonFormatter extends ManualFormatter {
 
     private static final Formatter JSON_FORMATTER = VarFormatter.JSON.getFormatter(true);
 
+    /**
+     * 构造函数的注释与声明，预先编码好之后可以直接写入字节输出流。
+     */
+    private static final Utf8Sink.Token CONSTRUCTOR_COMMENT = Utf8Sink.Token.of("    # 构造函数 / Constructor");
+    private static final Utf8Sink.Token CONSTRUCTOR_DEF = Utf8Sink.Token.of("    def __init__(self):");
+
     protected JToPythonFormatter() {
         super(VarFormatter.J_TO_PYTHON);
     }
@@ -22,20 +31,28 @@ public class JToPythonFormatter extends ManualFormatter {
     @Override
     public void formatToStream(Map<?, ?> data, String name, PrintWriter printWriter) {
         printWriter.println("class " + StrUtils.snakeToCamel(name) + ":");
-        printWriter.println("    # 构造函数 / Constructor");
-        printWriter.println("    def __init__(self):");
+        Utf8Sink.write(printWriter, CONSTRUCTOR_COMMENT);
+        printWriter.println();
+        Utf8Sink.write(printWriter, CONSTRUCTOR_DEF);
+        printWriter.println();
         // 开始迭代字段
         data.forEach((k, v) -> {
             if (v instanceof Number) {
-                printWriter.println("        self." + k + " = " + v);
-            } else if (v instanceof String) {
-                // 将 字符串中的所有 \ 做转义
-                final String temp = StrUtils.escapeNewline(((String) v));
-                printWriter.println("        self." + k + " = '" + temp + "'");
-            } else if (v instanceof Map<?, ?>) {
-                printWriter.println("        self." + k + " = " + JSON_FORMATTER.format((Map<?, ?>) v));
+                printWriter.append("        self.").append(k.toString()).append(" = ");
+                NumberWriter.writeNumber(printWriter, (Number) v);
+                printWriter.println();
+            } else if (v instanceof Boolean) {
+                printWriter.append("        self.").append(k.toString()).append(" = ").println((Boolean) v ? "True" : "False");
+            } else if (v instanceof String || v instanceof Character) {
+                // 字符串按照 python 字面量的规则转义之后直接写入
+                printWriter.append("        self.").append(k.toString()).append(" = '");
+                Escaper.PYTHON.write(printWriter, v.toString());
+                printWriter.println('\'');
             } else {
-                printWriter.println("        self." + k + " = " + JSON_FORMATTER.format(v));
+                // 其它类型的值直接使用 json 格式化组件写入到同一个数据流中
+                printWriter.append("        self.").append(k.toString()).append(" = ");
+                JSON_FORMATTER.formatToStream(v, printWriter);
+                printWriter.println();
             }
         });
         // 结束构造函数字段，开始迭代方法
@@ -1,11 +1,12 @@
 package top.lingyuzhao.varFormatter.core;
 
 import top.lingyuzhao.utils.ASClass;
-import top.lingyuzhao.varFormatter.utils.StrUtils;
+import top.lingyuzhao.varFormatter.utils.Escaper;
+import top.lingyuzhao.varFormatter.utils.NumberWriter;
+import top.lingyuzhao.varFormatter.utils.Utf8Sink;
+import top.lingyuzhao.varFormatter.utils.WriterPool;
 
-import java.io.IOException;
 import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.util.Collection;
 import java.util.Map;
 
@@ -18,6 +19,13 @@ import java.util.Map;
  */
 public class JsonFormatter extends ManualFormatter {
 
+    /**
+     * 每一个类对应的格式化计划，计划中的字段名字符串由当前格式化组件的名字函数生成。
+     * <p>
+     * The format plan of every class, the field name strings in the plan are produced by the name functions of this formatter.
+     */
+    private final ClassCache<FormatPlan> plans = new ClassCache<>(type -> FormatPlan.of(type, n -> formatName_start(n, null), n -> formatName_EndLast(n, null)), StructuralCache::getMaxSize);
+
     /**
      * 实例化格式化组件
      * <p>
@@ -41,21 +49,248 @@ public class JsonFormatter extends ManualFormatter {
 
     @Override
     public void formatToStream(Map<?, ?> data, String name, PrintWriter printWriter) {
-        int count = 0;
-        final int size = data.size();
-        for (Map.Entry<?, ?> stringObjectEntry : data.entrySet()) {
-            final String k = stringObjectEntry.getKey().toString();
-            final Object v = stringObjectEntry.getValue();
-            count = getCount(k, printWriter, count, size, v);
+        if (this.needsReferences()) {
+            final ReferenceTable previous = ReferenceTable.open(this, data);
+            try {
+                this.formatToStream(data, name, printWriter);
+            } finally {
+                ReferenceTable.close(previous);
+            }
+            return;
         }
+        this.headerToStream(name, data, printWriter);
+        this.formatValue(name, data, printWriter);
+        printWriter.append(this.footer(name, data));
     }
 
     @Override
     public void formatToStream(Collection<?> data, String name, PrintWriter printWriter) {
-        int count = 0;
-        final int size = data.size();
+        if (this.needsReferences()) {
+            final ReferenceTable previous = ReferenceTable.open(this, data);
+            try {
+                this.formatToStream(data, name, printWriter);
+            } finally {
+                ReferenceTable.close(previous);
+            }
+            return;
+        }
+        this.headerToStream(name, data, printWriter);
+        this.formatValue(name, data, printWriter);
+        printWriter.append(this.footer(name, data));
+    }
+
+    /**
+     * 将一个 Map 对象中的所有键值对直接输出到数据流中，不包含起始与终止字符串，嵌套的数据会直接写入同一个数据流，不会为每一层创建新的缓冲区。
+     * <p>
+     * Write all key value pairs of a Map directly into the stream, without the header and footer. Nested data is written into the same stream, no buffer is created per level.
+     *
+     * @param data        要格式化的 Map 对象
+     *                    <p>
+     *                    object to format
+     * @param printWriter 转换结果的数据输出流，转换的结果会存储进这个数据流中！
+     *                    <p>
+     *                    The data output stream of the conversion result will be stored in this data stream!
+     */
+    protected void formatMapToStream(Map<?, ?> data, PrintWriter printWriter) {
+        boolean first = true;
+        final ReferenceTable references = this.getReferences();
+        if (references != null) {
+            final Object identity = data instanceof FieldMapView ? ((FieldMapView) data).getData() : data;
+            final int id = references.idOf(identity);
+            if (id != 0) {
+                if (!references.markWritten(identity)) {
+                    // 已经输出过的对象 只输出对它的引用
+                    this.formatReference(id, printWriter);
+                    return;
+                }
+                first = !this.formatReferenceId(id, printWriter);
+            }
+        }
+        if (data instanceof FieldMapView) {
+            // 对象的字段视图 直接读取字段并输出
+            this.formatMapToStream((FieldMapView) data, first, printWriter);
+            return;
+        }
+        for (Map.Entry<?, ?> entry : data.entrySet()) {
+            this.formatItem(entry.getKey().toString(), entry.getValue(), first, printWriter);
+            first = false;
+        }
+    }
+
+    /**
+     * 格式化一个对象的字段视图，每一个字段都会在读取之后立即输出，不会产生中间的 Map 与 Entry 对象。
+     * <p>
+     * Format the field view of an object, every field is written immediately after it is read, without intermediate Map or Entry objects.
+     *
+     * @param view        要格式化的对象字段视图
+     * @param first       第一个字段是否是对象中的第一个元素
+     * @param printWriter 转换结果的数据输出流
+     */
+    private void formatMapToStream(FieldMapView view, boolean first, PrintWriter printWriter) {
+        final FormatterMetrics.Call call = FormatterMetrics.active ? FormatterMetrics.enter() : null;
+        if (call == null) {
+            this.formatFieldsToStream(view, first, printWriter);
+            return;
+        }
+        if (call.isSampled()) {
+            // 被采样的调用不使用计划 每一个字段都通过同样的方式计时
+            final FieldAccessor[] accessors = view.getAccessors();
+            final Object data = view.getData();
+            for (int i = 0; i < accessors.length; i++) {
+                final FieldAccessor accessor = accessors[i];
+                final long start = call.fieldStart(printWriter);
+                this.formatItem(accessor.getName(), accessor.get(data), first && i == 0, printWriter);
+                call.fieldEnd(view.getType(), accessor.getName(), start, printWriter);
+            }
+        } else {
+            this.formatFieldsToStream(view, first, printWriter);
+        }
+        call.exit();
+    }
+
+    /**
+     * 格式化一个对象的所有字段，能够使用格式化计划时会使用计划。
+     *
+     * @param view        要格式化的对象字段视图
+     * @param first       第一个字段是否是对象中的第一个元素
+     * @param printWriter 转换结果的数据输出流
+     */
+    private void formatFieldsToStream(FieldMapView view, boolean first, PrintWriter printWriter) {
+        // 计划中的起始字符串是预先生成的 无法携带引用信息 因此存在共享对象时不使用计划
+        if (this.isCompilePlan() && view.getType() != null && this.getReferences() == null) {
+            final FormatPlan plan = plans.get(view.getType());
+            if (plan != FormatPlan.UNSUPPORTED) {
+                this.formatPlanToStream(plan, view.getData(), first, printWriter);
+                return;
+            }
+        }
+        final FieldAccessor[] accessors = view.getAccessors();
+        final Object data = view.getData();
+        for (int i = 0; i < accessors.length; i++) {
+            final FieldAccessor accessor = accessors[i];
+            this.formatItem(accessor.getName(), accessor.get(data), first && i == 0, printWriter);
+        }
+    }
+
+    /**
+     * 使用格式化计划格式化一个对象，字段名相关的字符串直接使用计划中预先编码好的数据，基本数据类型的字段不会被装箱。
+     * <p>
+     * Format an object with a format plan. Strings related to field names come pre-encoded from the plan and primitive fields are not boxed.
+     *
+     * @param plan        对象所属类的格式化计划
+     * @param data        要格式化的对象
+     * @param first       第一个字段是否是对象中的第一个元素
+     * @param printWriter 转换结果的数据输出流
+     */
+    private void formatPlanToStream(FormatPlan plan, Object data, boolean first, PrintWriter printWriter) {
+        final FieldAccessor[] accessors = plan.getAccessors();
+        for (int i = 0; i < accessors.length; i++) {
+            final FieldAccessor accessor = accessors[i];
+            switch (accessor.getKind()) {
+                case FieldAccessor.KIND_INT:
+                    this.formatPlanStart(plan, i, first, printWriter);
+                    NumberWriter.writeInt(printWriter, accessor.getInt(data));
+                    break;
+                case FieldAccessor.KIND_LONG:
+                    this.formatPlanStart(plan, i, first, printWriter);
+                    NumberWriter.writeLong(printWriter, accessor.getLong(data));
+                    break;
+                case FieldAccessor.KIND_DOUBLE:
+                    this.formatPlanStart(plan, i, first, printWriter);
+                    NumberWriter.writeDouble(printWriter, accessor.getDouble(data));
+                    break;
+                case FieldAccessor.KIND_FLOAT:
+                    this.formatPlanStart(plan, i, first, printWriter);
+                    NumberWriter.writeFloat(printWriter, accessor.getFloat(data));
+                    break;
+                default:
+                    final Object v = this.wrapLazy(accessor.get(data));
+                    if (v instanceof Map || v instanceof Collection) {
+                        // 名字函数会根据值的类型变化 回退到原本的逻辑
+                        this.formatItem(accessor.getName(), v, first && i == 0, printWriter);
+                        continue;
+                    }
+                    this.formatPlanStart(plan, i, first, printWriter);
+                    this.formatValue(accessor.getName(), v, printWriter);
+            }
+            Utf8Sink.write(printWriter, plan.getEnd(i));
+        }
+    }
+
+    /**
+     * 写入计划中一个字段的分隔符与起始字符串。
+     */
+    private void formatPlanStart(FormatPlan plan, int index, boolean first, PrintWriter printWriter) {
+        if (!first || index > 0) {
+            printWriter.write(this.formatSeparator());
+        }
+        Utf8Sink.write(printWriter, plan.getStart(index));
+    }
+
+    /**
+     * 将一个 List 对象中的所有元素直接输出到数据流中，不包含起始与终止字符串，嵌套的数据会直接写入同一个数据流，不会为每一层创建新的缓冲区。
+     * <p>
+     * Write all elements of a List directly into the stream, without the header and footer. Nested data is written into the same stream, no buffer is created per level.
+     *
+     * @param data        要格式化的 List 对象
+     *                    <p>
+     *                    object to format
+     * @param name        每一个元素需要使用的名字，可以为 null
+     *                    <p>
+     *                    The name to use for every element, can be null
+     * @param printWriter 转换结果的数据输出流，转换的结果会存储进这个数据流中！
+     *                    <p>
+     *                    The data output stream of the conversion result will be stored in this data stream!
+     */
+    protected void formatListToStream(Collection<?> data, String name, PrintWriter printWriter) {
+        final ReferenceTable references = this.getReferences();
+        if (references != null && references.isShared(data)) {
+            this.formatSharedListToStream(data, name, references, printWriter);
+            return;
+        }
+        this.formatElementsToStream(data, name, printWriter);
+    }
+
+    /**
+     * 输出一个被共享的集合，`json` 的数组不能携带引用编号，因此被共享的集合每一次都会被完整的输出，集合直接或间接的包含了自己时会抛出异常。
+     * <p>
+     * Write a shared collection. A `json` array cannot carry a reference id, so a shared collection is written in full every time, and a collection that contains itself directly or indirectly raises an exception.
+     *
+     * @param data        被共享的集合
+     * @param name        每一个元素需要使用的名字，可以为 null
+     * @param references  当前格式化操作中的引用表
+     * @param printWriter 转换结果的数据输出流
+     * @throws IllegalStateException 集合在输出的过程中再次出现
+     */
+    void formatSharedListToStream(Collection<?> data, String name, ReferenceTable references, PrintWriter printWriter) {
+        if (!references.enter(data)) {
+            throw new IllegalStateException("The collection " + data.getClass().getName() + " contains itself and cannot be written as a json array.");
+        }
+        try {
+            this.formatElementsToStream(data, name, printWriter);
+        } finally {
+            references.exit(data);
+        }
+    }
+
+    /**
+     * 将集合中的所有元素写入数据流中，不处理集合本身的引用。
+     *
+     * @param data        要格式化的集合
+     * @param name        每一个元素需要使用的名字，可以为 null
+     * @param printWriter 转换结果的数据输出流
+     */
+    final void formatElementsToStream(Collection<?> data, String name, PrintWriter printWriter) {
+        if (this.isParallel(data)) {
+            // 大集合 切分之后并行格式化 再按照顺序拼接
+            ParallelChunks.format(data, this.getParallelThreshold(), this.getForkJoinPool(),
+                    (v, first, chunkWriter) -> this.formatItem(name, v, first, chunkWriter), printWriter);
+            return;
+        }
+        boolean first = true;
         for (Object v : data) {
-            count = getCount(name, printWriter, count, size, v);
+            this.formatItem(name, v, first, printWriter);
+            first = false;
         }
     }
 
@@ -76,8 +311,14 @@ public class JsonFormatter extends ManualFormatter {
      */
     @Override
     public final String format(Map<?, ?> data, String name) {
-        // 完毕之后将结果返回
-        return this.header(name, data) + this.formatMap(data) + this.footer(name, data);
+        final WriterPool.Lease lease = WriterPool.acquire();
+        try {
+            this.formatToStream(data, name, lease.getPrintWriter());
+            // 完毕之后将结果返回
+            return lease.toString();
+        } finally {
+            lease.release();
+        }
     }
 
     /**
@@ -95,8 +336,14 @@ public class JsonFormatter extends ManualFormatter {
      */
     @Override
     public final String format(Collection<?> data, String name) {
-        // 完毕之后将结果返回
-        return this.formatList(data, null);
+        final WriterPool.Lease lease = WriterPool.acquire();
+        try {
+            this.formatToStream(data, name, lease.getPrintWriter());
+            // 完毕之后将结果返回
+            return lease.toString();
+        } finally {
+            lease.release();
+        }
     }
 
     /**
@@ -107,16 +354,17 @@ public class JsonFormatter extends ManualFormatter {
      * @param data 要格式化的 Map 对象
      *             <p>
      *             object to format
-     * @return Map 对象被格式化操作执行之后的结果
+     * @return Map 对象被格式化操作执行之后的结果，不包含起始与终止字符串
      * <p>
-     * The result of a Map object after being formatted
+     * The result of a Map object after being formatted, without the header and footer
      */
     public String formatMap(Map<?, ?> data) {
-        try (StringWriter stringWriter = new StringWriter(); PrintWriter printWriter = new PrintWriter(stringWriter)) {
-            this.formatToStream(data, printWriter);
-            return stringWriter.toString();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        final WriterPool.Lease lease = WriterPool.acquire();
+        try {
+            this.formatMapToStream(data, lease.getPrintWriter());
+            return lease.toString();
+        } finally {
+            lease.release();
         }
     }
 
@@ -131,28 +379,89 @@ public class JsonFormatter extends ManualFormatter {
      * @param name 在格式化操作中 需要做为 key 的名称，在格式化操作中，list 往往会有可能不需要名字，因此这里可以设置为 null，如果格式化操作中需要名字，那么这里可以设置为一个名字。
      *             <p>
      *             In the format operation, it is necessary to use it as the name of the key. In the format operation, the list may not require a name, so it can be set to null here. If a name is required in the format operation, it can be set to a name here.
-     * @return Map 对象被格式化操作执行之后的结果
+     * @return Map 对象被格式化操作执行之后的结果，不包含起始与终止字符串
      * <p>
-     * The result of a Map object after being formatted
+     * The result of a Map object after being formatted, without the header and footer
      */
     public String formatList(Collection<?> data, String name) {
-        try (StringWriter stringWriter = new StringWriter(); PrintWriter printWriter = new PrintWriter(stringWriter)) {
-            this.formatToStream(data, name, printWriter);
-            return stringWriter.toString();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        final WriterPool.Lease lease = WriterPool.acquire();
+        try {
+            this.formatListToStream(data, name, lease.getPrintWriter());
+            return lease.toString();
+        } finally {
+            lease.release();
         }
     }
 
-    private int getCount(String name, PrintWriter stringBuilder, int count, int size, Object v) {
-        if (++count == size) {
-            // 如果是最后一个就直接将 formatName_start formatName_EndLast 调用
-            stringBuilder.append(this.formatName_start(name, v)).append(this.formatValue(name, v)).append(this.formatName_EndLast(name, v));
-        } else {
-            // 如果是中间的就直接 将 formatName_startLast formatName_EndLast 调用
-            stringBuilder.append(this.formatName_start(name, v)).append(this.formatValue(name, v)).append(this.formatName_End(name, v));
+    /**
+     * 将一个键值对或元素按照 formatSeparator formatName_start formatValue formatName_EndLast 的顺序直接写入数据流中，分隔符写在元素之前，因此不需要预先知道元素的数量，也不需要判断是否还有下一个元素。
+     * <p>
+     * Write a key value pair or element in the order formatSeparator formatName_start formatValue formatName_EndLast. The separator is written before the element, so neither the element count nor a look-ahead for the next element is needed.
+     *
+     * @param name        元素的名字
+     * @param v           元素的值
+     * @param first       是否是第一个元素，第一个元素之前不会写入分隔符
+     * @param printWriter 转换结果的数据输出流
+     */
+    private void formatItem(String name, Object v, boolean first, PrintWriter printWriter) {
+        v = this.wrapLazy(v);
+        if (!first) {
+            printWriter.write(this.formatSeparator());
         }
-        return count;
+        this.formatName_startToStream(name, v, printWriter);
+        this.formatValue(name, v, printWriter);
+        printWriter.append(this.formatName_EndLast(name, v));
+    }
+
+    /**
+     * 格式化数据 此函数用来生成两个元素之间的分隔符，会被写在除第一个元素以外的每一个元素之前，例如 `json` 中的分隔符就是 `return ","`
+     * <p>
+     * Format data. This function produces the separator between two elements, it is written before every element except the first one. For example in `json` the separator is `return ","`
+     *
+     * @return 元素之间的分隔符
+     * <p>
+     * The separator between elements
+     */
+    protected String formatSeparator() {
+        return ",";
+    }
+
+    /**
+     * 在一个被共享的对象第一次输出的时候写入它的引用编号，例如 `json` 中会写入 `"$id":"1"` 作为对象的第一个键值对。
+     * <p>
+     * Write the reference id of a shared object the first time it is written, for example `json` writes `"$id":"1"` as the first member of the object.
+     *
+     * @param id          对象的引用编号
+     * @param printWriter 转换结果的数据输出流
+     * @return 如果写入了一个元素则返回 true，之后的字段之前会写入分隔符
+     */
+    protected boolean formatReferenceId(int id, PrintWriter printWriter) {
+        printWriter.write("\"$id\":\"");
+        NumberWriter.writeInt(printWriter, id);
+        printWriter.write('"');
+        return true;
+    }
+
+    /**
+     * 写入对一个已经输出过的对象的引用，此内容会代替对象的所有字段，例如 `json` 中会写入 `"$ref":"1"`。
+     * <p>
+     * Write a reference to an object that has already been written, this replaces all of its fields, for example `json` writes `"$ref":"1"`.
+     *
+     * @param id          对象的引用编号
+     * @param printWriter 转换结果的数据输出流
+     */
+    protected void formatReference(int id, PrintWriter printWriter) {
+        printWriter.write("\"$ref\":\"");
+        NumberWriter.writeInt(printWriter, id);
+        printWriter.write('"');
+    }
+
+    /**
+     * @return json 与其子类支持引用追踪
+     */
+    @Override
+    protected boolean isReferenceSupported() {
+        return true;
     }
 
     /**
@@ -167,7 +476,20 @@ public class JsonFormatter extends ManualFormatter {
      * The starting string of a data type
      */
     protected String header(String name, Object o) {
-        return "{";
+        return o instanceof Collection ? "[" : "{";
+    }
+
+    /**
+     * 将 {@link #header(String, Object)} 的结果直接写入到数据流中，需要根据数据动态生成起始字符串的格式化组件可以重写此函数，避免生成临时的字符串。
+     * <p>
+     * Write the result of {@link #header(String, Object)} straight into the stream. Formatters whose header depends on the data can override this to avoid building a temporary string.
+     *
+     * @param name        需要被进行格式化的对象的名字
+     * @param o           需要被进行格式化的对象
+     * @param printWriter 转换结果的数据输出流
+     */
+    protected void headerToStream(String name, Object o, PrintWriter printWriter) {
+        printWriter.append(this.header(name, o));
     }
 
     /**
@@ -182,7 +504,7 @@ public class JsonFormatter extends ManualFormatter {
      * The end string of a data type
      */
     protected String footer(String name, Object o) {
-        return "}";
+        return o instanceof Collection ? "]" : "}";
     }
 
     /**
@@ -201,7 +523,7 @@ public class JsonFormatter extends ManualFormatter {
      * Rules for generating field names
      */
     protected String formatName_start(String name, Object o) {
-        final String s = name == null ? "" : "\"" + name + "\":";
+        final String s = name == null ? "" : "\"" + Escaper.JSON.escape(name) + "\":";
         if (o instanceof Map) {
             return s + '{';
         } else if (o instanceof Collection) {
@@ -211,9 +533,26 @@ public class JsonFormatter extends ManualFormatter {
         }
     }
 
+    /**
+     * 将 {@link #formatName_start(String, Object)} 的结果直接写入到数据流中，需要根据字段的值动态生成字符串的格式化组件可以重写此函数，避免生成临时的字符串。
+     * <p>
+     * Write the result of {@link #formatName_start(String, Object)} straight into the stream. Formatters whose output depends on the field value can override this to avoid building a temporary string.
+     *
+     * @param name        需要被进行格式化的字段的名字
+     * @param o           需要被进行格式化的字段的值
+     * @param printWriter 转换结果的数据输出流
+     */
+    protected void formatName_startToStream(String name, Object o, PrintWriter printWriter) {
+        printWriter.append(this.formatName_start(name, o));
+    }
+
 
     /**
      * 格式化数据 此函数用来将字段的名字进行格式化操作，需要注意的是 这里是用于在数值格式化完毕之后的格式化，也是结尾格式化，例如 `json` 中的格式化就是 `return ","`
+     * <p>
+     * 元素之间的分隔符现在由 {@link #formatSeparator()} 写在元素之前，格式化流程不再调用此函数，保留它只是为了兼容已有的子类。
+     * <p>
+     * The separator is now written before each element by {@link #formatSeparator()} and the formatting flow no longer calls this function, it is kept for existing subclasses.
      *
      * @param name 需要被进行格式化的字段的名字。
      *             <p>
@@ -226,7 +565,7 @@ public class JsonFormatter extends ManualFormatter {
      * Rules for generating field names
      */
     protected String formatName_End(String name, Object o) {
-        return this.formatName_EndLast(name, o) + ',';
+        return this.formatName_EndLast(name, o) + this.formatSeparator();
     }
 
     /**
@@ -264,6 +603,7 @@ public class JsonFormatter extends ManualFormatter {
      * @return 字段名字的生成规则
      */
     protected String formatValue(String name, Object value) {
+        value = this.wrapLazy(value);
         if (value instanceof Number) {
             return value.toString();
         }
@@ -273,9 +613,60 @@ public class JsonFormatter extends ManualFormatter {
         if (value instanceof Collection) {
             return this.formatList(ASClass.transform(value), null);
         }
-        if (value instanceof String) {
-            return "\"" + StrUtils.escapeNewline(value.toString()) + "\"";
+        if (value instanceof String || value instanceof Character) {
+            return '"' + Escaper.JSON.escape(value.toString()) + '"';
+        }
+        if (value instanceof Boolean) {
+            return value.toString();
         }
         return this.format(value);
     }
+
+    /**
+     * 格式化数据 此函数会将字段的值直接写入到数据流中，Map 与 Collection 类型的值会递归的写入同一个数据流，其它类型的值会交给 {@link #formatValue(String, Object)} 处理。
+     * <p>
+     * Format data. This function writes the value of a field straight into the stream. Map and Collection values are written recursively into the same stream, other values are handed to {@link #formatValue(String, Object)}.
+     *
+     * @param name        需要被进行格式化的字段的名字。
+     *                    <p>
+     *                    The name of the field that needs to be formatted.
+     * @param value       格式化操作中要用来进行存储的对象。
+     * @param printWriter 转换结果的数据输出流，转换的结果会存储进这个数据流中！
+     *                    <p>
+     *                    The data output stream of the conversion result will be stored in this data stream!
+     */
+    protected void formatValue(String name, Object value, PrintWriter printWriter) {
+        value = this.wrapLazy(value);
+        if (value instanceof Map) {
+            this.formatMapToStream((Map<?, ?>) value, printWriter);
+        } else if (value instanceof Collection) {
+            this.formatListToStream((Collection<?>) value, null, printWriter);
+        } else if (value instanceof String) {
+            this.formatStringToStream((String) value, printWriter);
+        } else if (value instanceof Number) {
+            NumberWriter.writeNumber(printWriter, (Number) value);
+        } else if (value instanceof Boolean) {
+            printWriter.write((Boolean) value ? "true" : "false");
+        } else if (value instanceof Character) {
+            this.formatStringToStream(value.toString(), printWriter);
+        } else if (value == null) {
+            printWriter.append(this.formatValue(name, null));
+        } else {
+            this.formatToStream(value, printWriter);
+        }
+    }
+
+    /**
+     * 将一个字符串类型的值转义之后直接写入到数据流中，不需要转义的字符串会被原样写入，不会产生临时的字符串。
+     * <p>
+     * Escape a String value and write it straight into the stream. Strings that need no escaping are written unchanged, no temporary string is created.
+     *
+     * @param value       需要被写入的字符串
+     * @param printWriter 转换结果的数据输出流
+     */
+    protected void formatStringToStream(String value, PrintWriter printWriter) {
+        printWriter.write('"');
+        Escaper.JSON.write(printWriter, value);
+        printWriter.write('"');
+    }
 }
@@ -0,0 +1,133 @@
+package top.lingyuzhao.varFormatter.core;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.BaseStream;
+
+/**
+ * 惰性集合，将 Iterator Stream Spliterator 以及启用之后的 Iterable 包装为只能遍历一次的集合，格式化组件会像普通集合一样逐个的读取并写出其中的元素，不会提前获取数量，也不会将元素缓存起来，因此可以直接格式化数据库游标之类的数据源。
+ * <p>
+ * Lazy collection, wrapping an Iterator, Stream, Spliterator and, when enabled, an Iterable into a collection that can be iterated once. Formatters read and write its elements one by one like any collection, without asking for the size and without buffering, so cursor-like sources such as database results can be formatted directly.
+ * <p>
+ * {@link #size()} 会将剩余的元素读取到缓冲区中，之后的遍历使用缓冲区，{@link #isEmpty()} 不会消耗元素，因此重写了集合格式化函数的子类依旧可以正常的使用这两个函数。
+ * <p>
+ * {@link #size()} drains the remaining elements into a buffer that later iterations use, and {@link #isEmpty()} consumes nothing, so subclasses overriding the collection format functions can still call both.
+ *
+ * @author zhao
+ */
+final class LazyCollection extends AbstractCollection<Object> {
+
+    private Iterator<?> iterator;
+
+    /**
+     * 调用 size 之后读取到的所有元素，为 null 代表还没有读取。
+     */
+    private List<Object> buffer;
+
+    private LazyCollection(Iterator<?> iterator) {
+        this.iterator = iterator;
+    }
+
+    /**
+     * 如果数据是 Iterator Stream 或 Spliterator，则将其包装为惰性集合，否则直接返回原数据。
+     * <p>
+     * Wrap the value into a lazy collection if it is an Iterator, a Stream or a Spliterator, otherwise return it unchanged.
+     *
+     * @param value     需要被检查的数据
+     * @param iterables 是否同时包装不是集合的 Iterable，实现了 Iterable 的普通对象会因此丢失它的字段
+     * @return 惰性集合或者原数据
+     */
+    static Object wrap(Object value, boolean iterables) {
+        if (value == null || value instanceof Collection || value instanceof Map) {
+            return value;
+        } else if (value instanceof Iterator) {
+            return new LazyCollection((Iterator<?>) value);
+        } else if (value instanceof BaseStream) {
+            return new LazyCollection(((BaseStream<?, ?>) value).iterator());
+        } else if (value instanceof Spliterator) {
+            return new LazyCollection(Spliterators.iterator((Spliterator<?>) value));
+        } else if (iterables && value instanceof Iterable) {
+            return new LazyCollection(new SelfGuard((Iterable<?>) value));
+        }
+        return value;
+    }
+
+    /**
+     * @return 数据源的迭代器，没有调用过 size 时只能获取一次
+     * @throws IllegalStateException 迭代器已经被获取过
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<Object> iterator() {
+        if (buffer != null) {
+            return buffer.iterator();
+        }
+        final Iterator<?> result = this.source();
+        this.iterator = null;
+        return (Iterator<Object>) result;
+    }
+
+    /**
+     * 获取元素的数量，第一次调用时会将剩余的元素全部读取到缓冲区中。
+     *
+     * @return 元素的数量
+     * @throws IllegalStateException 迭代器已经被获取过
+     */
+    @Override
+    public int size() {
+        if (buffer == null) {
+            final List<Object> list = new ArrayList<>();
+            this.source().forEachRemaining(list::add);
+            this.iterator = null;
+            buffer = list;
+        }
+        return buffer.size();
+    }
+
+    /**
+     * @return 是否没有任何元素，此操作不会消耗元素
+     * @throws IllegalStateException 迭代器已经被获取过
+     */
+    @Override
+    public boolean isEmpty() {
+        return buffer != null ? buffer.isEmpty() : !this.source().hasNext();
+    }
+
+    private Iterator<?> source() {
+        final Iterator<?> result = this.iterator;
+        if (result == null) {
+            throw new IllegalStateException("A lazy collection can only be iterated once.");
+        }
+        return result;
+    }
+
+    /**
+     * Iterable 的迭代器，遍历时返回的与自身相同或相等的元素（例如只有一个名字的 Path）会被替换为它的字符串，避免无限递归。
+     */
+    private static final class SelfGuard implements Iterator<Object> {
+        private final Iterable<?> source;
+        private final Iterator<?> iterator;
+
+        SelfGuard(Iterable<?> source) {
+            this.source = source;
+            this.iterator = source.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Object next() {
+            final Object next = iterator.next();
+            return next != null && (next == source || next.equals(source)) ? next.toString() : next;
+        }
+    }
+}
@@ -1,13 +1,26 @@
 package top.lingyuzhao.varFormatter.core;
 
 import top.lingyuzhao.varFormatter.utils.DataObj;
+import top.lingyuzhao.varFormatter.utils.Utf8Sink;
+import top.lingyuzhao.varFormatter.utils.WriterPool;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 /**
  * 手动格式化组件，在此组件中，您可以实现您需要的格式化操作与模式，同时库中的所有格式化器皆是此格式化器的子类实现。
@@ -23,7 +36,79 @@ public abstract class ManualFormatter implements Formatter {
      * <p>
      * The model of the current formatting component and the name of the data that can be formatted.
      */
-    private final VarFormatter formatterType;
+    private VarFormatter formatterType;
+
+    /**
+     * 是否启用格式化计划，启用之后会为每一个被格式化的类生成一次格式化计划，之后的格式化操作直接使用预先生成的字段名字符串，不支持格式化计划的格式化组件会忽略此配置。
+     *
+     * <p>
+     * Whether format plans are enabled. When enabled a format plan is generated once for every formatted class and later formatting uses the pre-generated field name strings. Formatters without plan support ignore this setting.
+     */
+    private boolean compilePlan;
+
+    /**
+     * 并行格式化集合时每一个块中的元素数量，元素数量超过此值的集合会被切分之后并行格式化，为 0 代表不启用并行格式化。
+     *
+     * <p>
+     * The number of elements per chunk when formatting collections in parallel. Collections with more elements than this value are split and formatted in parallel, 0 disables parallel formatting.
+     */
+    private int parallelThreshold;
+
+    /**
+     * 并行格式化使用的线程池，为 null 时使用 {@link ForkJoinPool#commonPool()}。
+     *
+     * <p>
+     * The pool used by parallel formatting, {@link ForkJoinPool#commonPool()} is used when it is null.
+     */
+    private ForkJoinPool forkJoinPool;
+
+    /**
+     * 是否追踪对象的引用，启用之后被引用了不止一次的对象（包括环）只会被完整的输出一次，之后的出现只会输出对它的引用，不支持引用追踪的格式化组件会忽略此配置。
+     *
+     * <p>
+     * Whether object references are tracked. When enabled an object reached more than once (cycles included) is written in full only once and later occurrences are written as references to it. Formatters without reference support ignore this setting.
+     */
+    private boolean trackReferences;
+
+    /**
+     * 写入文件时每一次批量写入的字节数量。
+     *
+     * <p>
+     * The number of bytes per batch when writing files.
+     */
+    private int fileBatchSize = 1 << 20;
+
+    /**
+     * 使用内存映射写入文件时每一个映射窗口的字节数量，为 0 代表不使用内存映射。
+     *
+     * <p>
+     * The number of bytes per window when files are written through memory mapping, 0 means memory mapping is not used.
+     */
+    private long fileMappedWindow;
+
+    /**
+     * 写入文件之后是否将数据强制写入到存储设备中。
+     *
+     * <p>
+     * Whether the data is forced onto the storage device after a file is written.
+     */
+    private boolean fileForce;
+
+    /**
+     * 异步格式化默认使用的线程池，为 null 时在 Java 21 及以上的运行环境中使用虚拟线程，否则使用 {@link ForkJoinPool#commonPool()}。
+     *
+     * <p>
+     * The default executor of asynchronous formatting. When it is null virtual threads are used on Java 21 and later, {@link ForkJoinPool#commonPool()} otherwise.
+     */
+    private Executor asyncExecutor;
+
+    /**
+     * 是否将不是集合的 Iterable 作为惰性集合格式化。
+     *
+     * <p>
+     * Whether an Iterable that is not a Collection is formatted as a lazy collection.
+     */
+    private boolean lazyIterables;
 
     /**
      * 实例化格式化组件
@@ -37,6 +122,17 @@ public abstract class ManualFormatter implements Formatter {
         this.formatterType = formatterType;
     }
 
+    /**
+     * 内置的格式化组件是在 VarFormatter 的枚举常量初始化过程中创建的，此时传递给构造函数的型号还是 null，这里由 VarFormatter 补充设置。
+     *
+     * @param formatterType 当前格式化组件的型号
+     */
+    final void bindFormatterType(VarFormatter formatterType) {
+        if (this.formatterType == null) {
+            this.formatterType = formatterType;
+        }
+    }
+
     /**
      * @return 当前格式化组件的型号，同时也是能够进行格式化的数据的类型。
      * <p>
@@ -47,6 +143,264 @@ public abstract class ManualFormatter implements Formatter {
         return this.formatterType;
     }
 
+    /**
+     * @return 是否启用了格式化计划
+     * <p>
+     * Whether format plans are enabled
+     */
+    public boolean isCompilePlan() {
+        return compilePlan;
+    }
+
+    /**
+     * 设置是否启用格式化计划，由于单例模式获取到的格式化组件是共享的，建议在 getFormatter(false) 获取到的格式化组件上进行设置。
+     * <p>
+     * Set whether format plans are enabled. Since formatters obtained in singleton mode are shared, it is recommended to set this on a formatter obtained by getFormatter(false).
+     *
+     * @param compilePlan 是否启用格式化计划
+     *                    <p>
+     *                    Whether format plans are enabled
+     */
+    public void setCompilePlan(boolean compilePlan) {
+        this.compilePlan = compilePlan;
+    }
+
+    /**
+     * @return 并行格式化集合时每一个块中的元素数量，为 0 代表没有启用并行格式化
+     * <p>
+     * The number of elements per chunk when formatting collections in parallel, 0 means parallel formatting is disabled
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * 设置并行格式化集合时每一个块中的元素数量，元素数量超过此值的集合会被切分到多个线程中格式化，之后按照原本的顺序拼接，结果与顺序格式化完全一致，不支持并行格式化的格式化组件会忽略此配置。
+     * <p>
+     * Set the number of elements per chunk when formatting collections in parallel. Collections with more elements than this value are formatted on several threads and stitched together in the original order, the result is identical to sequential formatting. Formatters without parallel support ignore this setting.
+     *
+     * @param parallelThreshold 每一个块中的元素数量，设置为 0 代表不启用并行格式化
+     *                          <p>
+     *                          The number of elements per chunk, 0 disables parallel formatting
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException("parallelThreshold must not be negative: " + parallelThreshold);
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * @return 并行格式化使用的线程池
+     * <p>
+     * The pool used by parallel formatting
+     */
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool == null ? ForkJoinPool.commonPool() : forkJoinPool;
+    }
+
+    /**
+     * 设置并行格式化使用的线程池。
+     * <p>
+     * Set the pool used by parallel formatting.
+     *
+     * @param forkJoinPool 线程池，设置为 null 代表使用 {@link ForkJoinPool#commonPool()}
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * @return 是否启用了引用追踪
+     * <p>
+     * Whether reference tracking is enabled
+     */
+    public boolean isTrackReferences() {
+        return trackReferences;
+    }
+
+    /**
+     * 设置是否追踪对象的引用，启用之后可以格式化包含环的对象图，共享的对象也不会被重复的输出，例如 json 中会使用 `$id` 与 `$ref`，yaml 中会使用锚点与别名，xml 中会使用 id 与 idref 属性。
+     * <p>
+     * Set whether object references are tracked. When enabled, object graphs with cycles can be formatted and shared objects are not repeated, for example json uses `$id` and `$ref`, yaml uses anchors and aliases and xml uses id and idref attributes.
+     * <p>
+     * 引用追踪需要在格式化之前遍历一次对象图，并且启用之后不会再进行并行格式化。
+     * <p>
+     * Reference tracking walks the object graph once before formatting, and parallel formatting is not used while it is enabled.
+     * <p>
+     * yaml 与 xml 中的集合同样会使用锚点或 id 属性，json 的数组不能携带引用编号，被共享的数组会被完整的输出多次，直接或间接包含自己的集合会导致 {@link IllegalStateException}。
+     * <p>
+     * Collections get anchors or id attributes in yaml and xml as well. A json array cannot carry a reference id, so a shared array is written in full every time and a collection that contains itself directly or indirectly raises {@link IllegalStateException}.
+     *
+     * @param trackReferences 是否追踪对象的引用
+     *                        <p>
+     *                        Whether object references are tracked
+     */
+    public void setTrackReferences(boolean trackReferences) {
+        this.trackReferences = trackReferences;
+    }
+
+    /**
+     * @return 是否将不是集合的 Iterable 作为惰性集合格式化
+     * <p>
+     * Whether an Iterable that is not a Collection is formatted as a lazy collection
+     */
+    public boolean isLazyIterables() {
+        return lazyIterables;
+    }
+
+    /**
+     * 设置是否将不是集合的 Iterable 作为惰性集合格式化，默认不启用。Iterator Stream 与 Spliterator 总是会被作为惰性集合格式化，而实现了 Iterable 的普通对象在启用之后只会输出它的元素，不会再输出它的字段。
+     * <p>
+     * Set whether an Iterable that is not a Collection is formatted as a lazy collection, disabled by default. Iterator, Stream and Spliterator are always formatted lazily, while an ordinary object implementing Iterable only has its elements written, not its fields, once this is enabled.
+     *
+     * @param lazyIterables 是否将 Iterable 作为惰性集合格式化
+     *                      <p>
+     *                      Whether Iterables are formatted as lazy collections
+     */
+    public void setLazyIterables(boolean lazyIterables) {
+        this.lazyIterables = lazyIterables;
+    }
+
+    /**
+     * 如果数据是只能遍历一次的数据源，则将其包装为惰性集合，否则直接返回原数据。
+     *
+     * @param value 需要被检查的数据
+     * @return 惰性集合或者原数据
+     */
+    final Object wrapLazy(Object value) {
+        return LazyCollection.wrap(value, lazyIterables);
+    }
+
+    /**
+     * @return 写入文件时每一次批量写入的字节数量
+     * <p>
+     * The number of bytes per batch when writing files
+     */
+    public int getFileBatchSize() {
+        return fileBatchSize;
+    }
+
+    /**
+     * 设置写入文件时每一次批量写入的字节数量，数值会被向上对齐到 {@link Utf8Sink#FILE_ALIGNMENT} 的整数倍，默认为 1MB，使用内存映射写入时此配置无效。
+     * <p>
+     * Set the number of bytes per batch when writing files. The value is rounded up to a multiple of {@link Utf8Sink#FILE_ALIGNMENT} and defaults to 1MB, it is not used when writing through memory mapping.
+     *
+     * @param fileBatchSize 每一次批量写入的字节数量
+     *                      <p>
+     *                      The number of bytes per batch
+     */
+    public void setFileBatchSize(int fileBatchSize) {
+        if (fileBatchSize <= 0) {
+            throw new IllegalArgumentException("fileBatchSize must be positive: " + fileBatchSize);
+        }
+        this.fileBatchSize = fileBatchSize;
+    }
+
+    /**
+     * @return 使用内存映射写入文件时每一个映射窗口的字节数量，为 0 代表不使用内存映射
+     * <p>
+     * The number of bytes per window when files are written through memory mapping, 0 means memory mapping is not used
+     */
+    public long getFileMappedWindow() {
+        return fileMappedWindow;
+    }
+
+    /**
+     * 设置使用内存映射写入文件时每一个映射窗口的字节数量，设置之后文件会被逐个窗口的映射到内存中写入，写满一个窗口之后映射下一个窗口，写入完毕之后文件会被截断到实际的长度。窗口在被垃圾回收之前会一直保持映射，Windows 中会改为批量写入，详见 {@link Utf8Sink#mapped(FileChannel, long, boolean)}。
+     * <p>
+     * Set the number of bytes per window when files are written through memory mapping. When set, the file is mapped into memory window by window, the next window is mapped once one is full, and the file is truncated to its real length at the end. Windows stay mapped until they are garbage collected, and Windows falls back to batched writes, see {@link Utf8Sink#mapped(FileChannel, long, boolean)}.
+     *
+     * @param fileMappedWindow 每一个映射窗口的字节数量，设置为 0 代表不使用内存映射
+     *                         <p>
+     *                         The number of bytes per window, 0 means memory mapping is not used
+     */
+    public void setFileMappedWindow(long fileMappedWindow) {
+        if (fileMappedWindow < 0) {
+            throw new IllegalArgumentException("fileMappedWindow must not be negative: " + fileMappedWindow);
+        }
+        this.fileMappedWindow = fileMappedWindow;
+    }
+
+    /**
+     * @return 写入文件之后是否将数据强制写入到存储设备中
+     * <p>
+     * Whether the data is forced onto the storage device after a file is written
+     */
+    public boolean isFileForce() {
+        return fileForce;
+    }
+
+    /**
+     * 设置写入文件之后是否将数据强制写入到存储设备中，启用之后在 formatToFile 返回时数据已经持久化，但是会明显的增加写入的耗时。
+     * <p>
+     * Set whether the data is forced onto the storage device after a file is written. When enabled the data is durable once formatToFile returns, at a noticeable cost in write time.
+     *
+     * @param fileForce 是否将数据强制写入到存储设备中
+     *                  <p>
+     *                  Whether the data is forced onto the storage device
+     */
+    public void setFileForce(boolean fileForce) {
+        this.fileForce = fileForce;
+    }
+
+    /**
+     * @return 异步格式化默认使用的线程池
+     * <p>
+     * The default executor of asynchronous formatting
+     */
+    public Executor getAsyncExecutor() {
+        return asyncExecutor == null ? AsyncExecutors.defaultExecutor() : asyncExecutor;
+    }
+
+    /**
+     * 设置 {@link #formatAsync(Object)} 使用的线程池。
+     * <p>
+     * Set the executor used by {@link #formatAsync(Object)}.
+     *
+     * @param asyncExecutor 线程池，设置为 null 代表在 Java 21 及以上的运行环境中使用虚拟线程，否则使用 {@link ForkJoinPool#commonPool()}
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * @return 当前格式化组件是否支持引用追踪，不支持的格式化组件会忽略 {@link #setTrackReferences(boolean)} 的配置
+     * <p>
+     * Whether this formatter supports reference tracking, formatters that do not ignore {@link #setTrackReferences(boolean)}
+     */
+    protected boolean isReferenceSupported() {
+        return false;
+    }
+
+    /**
+     * 获取当前格式化操作中的引用表。
+     *
+     * @return 引用表，如果没有启用引用追踪或者数据中没有被共享的对象则返回 null
+     */
+    final ReferenceTable getReferences() {
+        return trackReferences ? ReferenceTable.current(this) : null;
+    }
+
+    /**
+     * @return 如果需要为这一次格式化操作打开引用表则返回 true，嵌套的格式化调用会直接使用已经打开的引用表
+     */
+    final boolean needsReferences() {
+        return trackReferences && this.isReferenceSupported() && !ReferenceTable.isOpen(this);
+    }
+
+    /**
+     * 判断一个集合是否需要使用并行格式化。
+     *
+     * @param data 需要被格式化的集合
+     * @return 如果启用了并行格式化并且集合中的元素数量超过了块的大小则返回 true
+     */
+    protected final boolean isParallel(Collection<?> data) {
+        // 惰性集合的数量未知 只能顺序的格式化
+        // 引用表属于当前线程 并且引用的编号依赖输出的顺序 因此追踪引用时也不进行并行格式化
+        return parallelThreshold > 0 && !trackReferences && !(data instanceof LazyCollection) && data.size() > parallelThreshold;
+    }
+
     /**
      * 格式化数据函数，您可以在这里直接将需要被进行格式化的数据传递进来！
      * <p>
@@ -75,16 +429,44 @@ public abstract class ManualFormatter implements Formatter {
      */
     @Override
     public String format(Object data, boolean getName) {
+        final FormatterMetrics.Call call = FormatterMetrics.begin(formatterType, data);
+        if (call != null) {
+            String result = null;
+            try {
+                return result = this.format(data, getName);
+            } finally {
+                call.end(result);
+            }
+        }
+        if (this.needsReferences()) {
+            final ReferenceTable previous = ReferenceTable.open(this, data);
+            try {
+                return this.format(data, getName);
+            } finally {
+                ReferenceTable.close(previous);
+            }
+        }
         if (data == null) {
             return this.format(new HashMap<>());
         }
+        if (data instanceof Map) {
+            return this.format((Map<?, ?>) data);
+        }
         final Class<?> aClass = data instanceof Class ? (Class<?>) data : data.getClass();
+        data = this.wrapLazy(data);
+        if (data instanceof LazyCollection) {
+            // 迭代器与流的实现类名没有意义 使用批量格式化的默认名字
+            return this.format((Collection<?>) data, getName ? DEFAULT_BATCH_NAME : null);
+        }
+        if (data instanceof Collection) {
+            return this.format((Collection<?>) data, getName ? StructuralNameCache.classToName(aClass) : null);
+        }
         return this.format(data, aClass, getName ? StructuralNameCache.classToName(aClass) : null);
     }
 
     @Override
     public String format(Object data, Class<?> dataClassObj, String name) {
-        return this.format(StructuralCache.classToMap(dataClassObj, data), name);
+        return this.format(StructuralCache.classToView(dataClassObj, data), name);
     }
 
     /**
@@ -101,6 +483,23 @@ public abstract class ManualFormatter implements Formatter {
      */
     @Override
     public final String format(Map<?, ?> data) {
+        final FormatterMetrics.Call call = FormatterMetrics.begin(formatterType, data);
+        if (call != null) {
+            String result = null;
+            try {
+                return result = this.format(data);
+            } finally {
+                call.end(result);
+            }
+        }
+        if (this.needsReferences()) {
+            final ReferenceTable previous = ReferenceTable.open(this, data);
+            try {
+                return this.format(data);
+            } finally {
+                ReferenceTable.close(previous);
+            }
+        }
         // 完毕之后将结果返回
         return this.format(data, data instanceof DataObj ? ((DataObj) data).getName() : "map");
     }
@@ -122,12 +521,20 @@ public abstract class ManualFormatter implements Formatter {
      */
     @Override
     public String format(Map<?, ?> data, String name) {
-        try (final StringWriter stringWriter = new StringWriter();
-             final PrintWriter printWriter = new PrintWriter(stringWriter)) {
-            this.formatToStream(data, printWriter);
-            return stringWriter.toString();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        if (this.needsReferences()) {
+            final ReferenceTable previous = ReferenceTable.open(this, data);
+            try {
+                return this.format(data, name);
+            } finally {
+                ReferenceTable.close(previous);
+            }
+        }
+        final WriterPool.Lease lease = WriterPool.acquire();
+        try {
+            this.formatToStream(data, name, lease.getPrintWriter());
+            return lease.toString();
+        } finally {
+            lease.release();
         }
     }
 
@@ -146,12 +553,20 @@ public abstract class ManualFormatter implements Formatter {
      */
     @Override
     public String format(Collection<?> data, String name) {
-        try (final StringWriter stringWriter = new StringWriter();
-             final PrintWriter printWriter = new PrintWriter(stringWriter)) {
-            this.formatToStream(data, printWriter);
-            return stringWriter.toString();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        if (this.needsReferences()) {
+            final ReferenceTable previous = ReferenceTable.open(this, data);
+            try {
+                return this.format(data, name);
+            } finally {
+                ReferenceTable.close(previous);
+            }
+        }
+        final WriterPool.Lease lease = WriterPool.acquire();
+        try {
+            this.formatToStream(data, name, lease.getPrintWriter());
+            return lease.toString();
+        } finally {
+            lease.release();
         }
     }
 
@@ -162,24 +577,239 @@ public abstract class ManualFormatter implements Formatter {
 
     @Override
     public void formatToStream(Object data, boolean getName, PrintWriter printWriter) {
+        final FormatterMetrics.Call call = FormatterMetrics.begin(formatterType, data, printWriter);
+        if (call != null) {
+            try {
+                this.formatToStream(data, getName, call.writer());
+            } finally {
+                call.end();
+            }
+            return;
+        }
+        if (this.needsReferences()) {
+            final ReferenceTable previous = ReferenceTable.open(this, data);
+            try {
+                this.formatToStream(data, getName, printWriter);
+            } finally {
+                ReferenceTable.close(previous);
+            }
+            return;
+        }
         if (data == null) {
             this.formatToStream(new HashMap<>(), printWriter);
             return;
         }
+        if (data instanceof Map) {
+            this.formatToStream((Map<?, ?>) data, printWriter);
+            return;
+        }
         final Class<?> aClass = data instanceof Class ? (Class<?>) data : data.getClass();
+        data = this.wrapLazy(data);
+        if (data instanceof LazyCollection) {
+            this.formatToStream((Collection<?>) data, getName ? DEFAULT_BATCH_NAME : null, printWriter);
+            return;
+        }
+        if (data instanceof Collection) {
+            this.formatToStream((Collection<?>) data, getName ? StructuralNameCache.classToName(aClass) : null, printWriter);
+            return;
+        }
         this.formatToStream(data, aClass, getName ? StructuralNameCache.classToName(aClass) : null, printWriter);
     }
 
     @Override
     public void formatToStream(Object data, Class<?> dataClassObj, String name, PrintWriter printWriter) {
-        this.formatToStream(StructuralCache.classToMap(dataClassObj, data), name, printWriter);
+        this.formatToStream(StructuralCache.classToView(dataClassObj, data), name, printWriter);
     }
 
     @Override
     public void formatToStream(Map<?, ?> data, PrintWriter printWriter) {
+        final FormatterMetrics.Call call = FormatterMetrics.begin(formatterType, data, printWriter);
+        if (call != null) {
+            try {
+                this.formatToStream(data, call.writer());
+            } finally {
+                call.end();
+            }
+            return;
+        }
+        if (this.needsReferences()) {
+            final ReferenceTable previous = ReferenceTable.open(this, data);
+            try {
+                this.formatToStream(data, printWriter);
+            } finally {
+                ReferenceTable.close(previous);
+            }
+            return;
+        }
         this.formatToStream(data, data instanceof DataObj ? ((DataObj) data).getName() : "map", printWriter);
     }
 
+    @Override
+    public void formatToStream(Object data, OutputStream outputStream) {
+        this.formatToSink(data, Utf8Sink.of(outputStream));
+    }
+
+    @Override
+    public void formatToStream(Object data, ByteBuffer byteBuffer) {
+        this.formatToSink(data, Utf8Sink.of(byteBuffer));
+    }
+
+    @Override
+    public void formatToStream(Object data, WritableByteChannel channel) {
+        this.formatToSink(data, Utf8Sink.of(channel));
+    }
+
+    @Override
+    public void formatAll(Iterator<?> data, String name, PrintWriter printWriter) {
+        this.formatAllStart(name, printWriter);
+        while (data.hasNext()) {
+            this.formatAllRecord(data.next(), printWriter);
+        }
+        this.formatAllEnd(name, printWriter);
+    }
+
+    @Override
+    public void formatAll(Iterable<?> data, PrintWriter printWriter) {
+        this.formatAll(data.iterator(), DEFAULT_BATCH_NAME, printWriter);
+    }
+
+    @Override
+    public void formatAll(Stream<?> data, PrintWriter printWriter) {
+        this.formatAll(data.iterator(), DEFAULT_BATCH_NAME, printWriter);
+    }
+
+    @Override
+    public void formatAll(Iterator<?> data, String name, OutputStream outputStream) {
+        this.formatAllToSink(data, name, Utf8Sink.of(outputStream));
+    }
+
+    @Override
+    public void formatAll(Iterator<?> data, String name, WritableByteChannel channel) {
+        this.formatAllToSink(data, name, Utf8Sink.of(channel));
+    }
+
+    @Override
+    public void formatAll(Iterator<?> data, String name, Path path) {
+        try (FileChannel channel = this.openFile(path)) {
+            final Utf8Sink sink = this.fileSink(channel);
+            this.formatAll(data, name, sink);
+            sink.close();
+            sink.rethrowError();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void formatAllToSink(Iterator<?> data, String name, Utf8Sink sink) {
+        this.formatAll(data, name, sink);
+        sink.flush();
+        sink.rethrowError();
+    }
+
+    /**
+     * 批量格式化开始时写入的数据，默认不写入任何数据。
+     * <p>
+     * Data written when a batch starts, nothing by default.
+     *
+     * @param name        整批数据的名字
+     * @param printWriter 转换结果的数据输出流
+     */
+    protected void formatAllStart(String name, PrintWriter printWriter) {
+    }
+
+    /**
+     * 批量格式化中写入一条记录，默认会将记录格式化之后追加一个换行符，也就是每一行一条记录。
+     * <p>
+     * Write one record of a batch. By default the record is formatted and followed by a newline, so there is one record per line.
+     *
+     * @param record      需要被格式化的记录
+     * @param printWriter 转换结果的数据输出流
+     */
+    protected void formatAllRecord(Object record, PrintWriter printWriter) {
+        this.formatToStream(record, printWriter);
+        printWriter.write('\n');
+    }
+
+    /**
+     * 批量格式化结束时写入的数据，默认不写入任何数据。
+     * <p>
+     * Data written when a batch ends, nothing by default.
+     *
+     * @param name        整批数据的名字
+     * @param printWriter 转换结果的数据输出流
+     */
+    protected void formatAllEnd(String name, PrintWriter printWriter) {
+    }
+
+    /**
+     * 将一个对象格式化到 UTF-8 字节输出流中，完毕之后会刷新输出流，并将写入过程中出现的 IO 错误抛出。
+     *
+     * @param data 要格式化的对象
+     * @param sink UTF-8 字节输出流
+     */
+    private void formatToSink(Object data, Utf8Sink sink) {
+        this.formatToStream(data, sink);
+        sink.flush();
+        sink.rethrowError();
+    }
+
+    @Override
+    public void formatToFile(Object data, Path path) {
+        try (FileChannel channel = this.openFile(path)) {
+            final Utf8Sink sink = this.fileSink(channel);
+            this.formatToStream(data, sink);
+            // 关闭时会写入剩余的数据 截断映射的文件 并按照配置强制写入存储设备
+            sink.close();
+            sink.rethrowError();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> formatAsync(Object data) {
+        return this.formatAsync(data, this.getAsyncExecutor());
+    }
+
+    @Override
+    public CompletableFuture<String> formatAsync(Object data, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> this.format(data), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> formatAsync(Object data, PrintWriter printWriter, Executor executor) {
+        return CompletableFuture.runAsync(() -> {
+            this.formatToStream(data, printWriter);
+            printWriter.flush();
+            if (printWriter instanceof Utf8Sink) {
+                ((Utf8Sink) printWriter).rethrowError();
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> formatToFileAsync(Object data, Path path, Executor executor) {
+        return CompletableFuture.runAsync(() -> this.formatToFile(data, path), executor);
+    }
+
+    /**
+     * 以覆盖的方式打开需要被写入的文件，使用内存映射时需要同时以读模式打开。
+     */
+    private FileChannel openFile(Path path) throws IOException {
+        if (fileMappedWindow > 0) {
+            return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 根据文件写入配置创建写入到文件中的输出流。
+     */
+    private Utf8Sink fileSink(FileChannel channel) throws IOException {
+        return fileMappedWindow > 0 ? Utf8Sink.mapped(channel, fileMappedWindow, fileForce) : Utf8Sink.of(channel, fileBatchSize, fileForce);
+    }
+
     /**
      * Creates and returns a copy of this object.  The precise meaning
      * of "copy" may depend on the class of the object. The general
@@ -1,24 +1,205 @@
 package top.lingyuzhao.varFormatter.core;
 
 import top.lingyuzhao.varFormatter.utils.DataObj;
+import top.lingyuzhao.varFormatter.utils.Escaper;
+import top.lingyuzhao.varFormatter.utils.NumberWriter;
+import top.lingyuzhao.varFormatter.utils.StringBuilderWriter;
 
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
 
 /**
  * Mermaid 格式化器 此格式化器可以将一个类中的结构进行格式化，能够完全的转换为 Mermaid 格式的图代码。
  * <p>
  * The Mermaid formatter is a formatter that can format structures within a class and fully convert them into Mermaid formatted graph code.
+ * <p>
+ * 对于非常大的结构，可以通过深度与节点数量的上限、重复边的去除以及拆分为多个图的方式控制输出的规模，被省略的部分会使用 `+N more` 节点进行概括。
+ * <p>
+ * For very large structures the output size can be bounded with depth and node budgets, repeated edge removal and splitting into several diagrams. Omitted parts are summarised by `+N more` nodes.
  *
  * @author zhao
  */
 public class MermaidFormatter extends ManualFormatter {
 
+    private static final String MAP_TO_MAP = "==Map>Map==>";
+    private static final String MAP_TO_COLLECTION = "==Map>Collection==>";
+    private static final String MAP_TO_VALUE = "==Map>String/Number==>";
+    private static final String MAP_TO_OBJECT = "==Map>Object==>";
+    private static final String MAP_VALUE = "--Map>value-->";
+    private static final String COLLECTION_TO_MAP = "==Collection>Map==>";
+    private static final String COLLECTION_TO_COLLECTION = "==Collection>Collection==>";
+    private static final String COLLECTION_TO_VALUE = "==Collection>String/Number==>";
+    private static final String COLLECTION_TO_OBJECT = "==Collection>Object==>";
+    private static final String COLLECTION_VALUE = "--Collection>value-->";
+    private static final String TO_MORE = "-.->";
+    private static final String TO_PART = "==>";
+
+    /**
+     * 是否使用紧凑的节点编号，启用之后每一个节点都会使用 `n` 加数字的短编号，名字只会作为标签在节点第一次出现时声明一次，节点编号的长度不会随着深度增加。
+     * <p>
+     * Whether compact node ids are used. When enabled every node gets a short id made of `n` and a number, the name is declared once as the label where the node first appears, and the id length does not grow with depth.
+     */
+    private boolean compactIds;
+
+    /**
+     * 图的最大深度，为 0 代表不限制。
+     * <p>
+     * The maximum depth of the graph, 0 means unlimited.
+     */
+    private int maxDepth;
+
+    /**
+     * 一个图中最多输出的节点数量，包括根节点、值节点以及 `+N more` 与 `part N` 节点，为 0 代表不限制。
+     * <p>
+     * The maximum number of nodes written into one diagram, counting the root, value nodes and `+N more` and `part N` nodes, 0 means unlimited.
+     */
+    private int maxNodes;
+
+    /**
+     * 是否去除重复的边。
+     * <p>
+     * Whether repeated edges are removed.
+     */
+    private boolean dedupEdges;
+
+    /**
+     * 拆分图的深度，为 0 代表不拆分。
+     * <p>
+     * The depth at which the graph is split, 0 means no split.
+     */
+    private int splitDepth;
+
     protected MermaidFormatter() {
         super(VarFormatter.MERMAID);
     }
 
+    /**
+     * @return 是否使用紧凑的节点编号
+     * <p>
+     * Whether compact node ids are used
+     */
+    public boolean isCompactIds() {
+        return compactIds;
+    }
+
+    /**
+     * 设置是否使用紧凑的节点编号，默认情况下节点编号就是字段的名字或使用 `.` 拼接的路径，节点数量很多的时候启用此配置可以明显的减少输出的长度。
+     * <p>
+     * Set whether compact node ids are used. By default the node id is the field name or the `.` joined path, enabling this noticeably shrinks the output of graphs with many nodes.
+     *
+     * @param compactIds 是否使用紧凑的节点编号
+     *                   <p>
+     *                   Whether compact node ids are used
+     */
+    public void setCompactIds(boolean compactIds) {
+        this.compactIds = compactIds;
+    }
+
+    /**
+     * @return 图的最大深度，为 0 代表不限制
+     * <p>
+     * The maximum depth of the graph, 0 means unlimited
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * 设置图的最大深度，处于最大深度的 Map 集合与对象节点不会再展开，而是使用一个 `+N more` 节点概括其中的元素数量。
+     * <p>
+     * Set the maximum depth of the graph. Map, collection and object nodes at the maximum depth are not expanded any further, a `+N more` node summarises the number of their elements instead.
+     *
+     * @param maxDepth 图的最大深度，设置为 0 代表不限制
+     *                 <p>
+     *                 The maximum depth, 0 means unlimited
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth must not be negative: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * @return 一个图中最多输出的节点数量，为 0 代表不限制
+     * <p>
+     * The maximum number of nodes written into one diagram, 0 means unlimited
+     */
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * 设置一个图中最多输出的节点数量，图中写入的每一个节点都会被计数，包括根节点、标量的值节点以及 `+N more` 与 `part N` 节点。每一个还没有输出完毕的节点都会预留一个位置，达到上限之后使用一个 `+N more` 节点概括剩余的元素数量，因此输出的节点数量不会超过上限，但根节点与它的概括节点总是会被写入。
+     * <p>
+     * Set the maximum number of nodes written into one diagram. Every node written is counted, including the root, the value nodes of scalars and `+N more` and `part N` nodes. Every node that is not finished yet keeps one slot reserved, so once the budget is reached it summarises its remaining elements with a `+N more` node and the output never exceeds the budget, except that the root and its summary node are always written.
+     *
+     * @param maxNodes 最多输出的节点数量，设置为 0 代表不限制
+     *                 <p>
+     *                 The maximum number of nodes, 0 means unlimited
+     */
+    public void setMaxNodes(int maxNodes) {
+        if (maxNodes < 0) {
+            throw new IllegalArgumentException("maxNodes must not be negative: " + maxNodes);
+        }
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * @return 是否去除重复的边
+     * <p>
+     * Whether repeated edges are removed
+     */
+    public boolean isDedupEdges() {
+        return dedupEdges;
+    }
+
+    /**
+     * 设置是否去除重复的边，在不拼接名字的时候，不同位置的同名字段会对应同一个节点，此时会产生大量完全相同的边，启用之后每一条边只会输出一次。
+     * <p>
+     * Set whether repeated edges are removed. When names are not joined, fields with the same name in different places map to the same node and produce many identical edges, when enabled every edge is written only once.
+     *
+     * @param dedupEdges 是否去除重复的边
+     *                   <p>
+     *                   Whether repeated edges are removed
+     */
+    public void setDedupEdges(boolean dedupEdges) {
+        this.dedupEdges = dedupEdges;
+    }
+
+    /**
+     * @return 拆分图的深度，为 0 代表不拆分
+     * <p>
+     * The depth at which the graph is split, 0 means no split
+     */
+    public int getSplitDepth() {
+        return splitDepth;
+    }
+
+    /**
+     * 设置拆分图的深度，只对 {@link #formatToStreams(Object, IntFunction)} 生效，处于此深度的 Map 集合与对象节点会被拆分为单独的图，原本的图中会使用一个 `part N` 节点指向拆分出来的图，所有拆分出来的图会并行的生成。
+     * <p>
+     * Set the depth at which the graph is split, only used by {@link #formatToStreams(Object, IntFunction)}. Map, collection and object nodes at this depth become separate diagrams, the original diagram links to each of them with a `part N` node, and all parts are generated in parallel.
+     *
+     * @param splitDepth 拆分图的深度，设置为 0 代表不拆分
+     *                   <p>
+     *                   The split depth, 0 means no split
+     */
+    public void setSplitDepth(int splitDepth) {
+        if (splitDepth < 0) {
+            throw new IllegalArgumentException("splitDepth must not be negative: " + splitDepth);
+        }
+        this.splitDepth = splitDepth;
+    }
+
     /**
      * 格式化一个 List 对象，会自动的将其中的 key 和 value 按照一定的格式进行解析和计算，获取到最终结果。
      * <p>
@@ -52,6 +233,109 @@ public class MermaidFormatter extends ManualFormatter {
      * @param nameJoin    如果需要进行名称的拼接操作可以在这里设置为 true or null ，拼接名字有助于避免名称重复的问题，在图构建中能完全的避免分支交叉，但是如果您需要进行分支交叉，则不建议设置为 true。
      */
     public void formatToStream(Map<?, ?> data, String name, PrintWriter printWriter, Boolean nameJoin) {
+        final Graph graph = this.newGraph(name, false);
+        this.formatMap(data, graph.root == null ? name : graph.root, printWriter, nameJoin, 0, graph);
+    }
+
+    /**
+     * 格式化一个 List 对象，会自动的将其中的 key 和 value 按照一定的格式进行解析和计算，获取到最终结果。
+     * <p>
+     * Formatting a Map object will automatically parse and calculate the key and value in a certain format to obtain the final result.!
+     *
+     * @param data        要格式化的 List 对象
+     *                    <p>
+     *                    object to format
+     * @param name        在格式化操作中 需要做为 key 的名称
+     * @param printWriter 转换结果的数据输出流，转换的结果会存储进这个数据流中！
+     *                    <p>
+     *                    The data output stream of the conversion result, and the result of the conversion will be stored in this data stream!
+     */
+    @Override
+    public void formatToStream(Collection<?> data, String name, PrintWriter printWriter) {
+        final Graph graph = this.newGraph(name, false);
+        this.formatCollection(data, graph.root == null ? name : graph.root, printWriter, 0, graph);
+    }
+
+    /**
+     * 将一个数据格式化为多个互相链接的图，第一个图是数据的上层结构，处于拆分深度的每一个节点都会成为一个单独的图，拆分出来的图会在线程池中并行的生成，之后按照编号依次写入对应的数据流。没有设置拆分深度时只会生成一个图。
+     * <p>
+     * Format the data into several linked diagrams. The first diagram holds the upper structure, and every node at the split depth becomes a diagram of its own. The parts are generated in parallel on the pool and then written in order into their streams. Only one diagram is generated when no split depth is set.
+     *
+     * @param data  需要被格式化的数据
+     *              <p>
+     *              The data to format
+     * @param sinks 根据图的编号获取输出流的函数，编号从 0 开始，0 号是上层结构的图，输出流会在写入之后被刷新，但不会被关闭
+     *              <p>
+     *              Function returning the stream of a diagram by its number, starting at 0 for the upper structure. Streams are flushed after writing but not closed
+     * @return 生成的图的数量
+     * <p>
+     * The number of diagrams generated
+     */
+    public int formatToStreams(Object data, IntFunction<PrintWriter> sinks) {
+        final Object value = this.wrapLazy(data == null ? new HashMap<>() : data);
+        final String name = value instanceof DataObj ? ((DataObj) value).getName()
+                : value instanceof Map ? "map"
+                : value instanceof LazyCollection ? DEFAULT_BATCH_NAME
+                : StructuralNameCache.classToName(data.getClass());
+        final Graph graph = this.newGraph(name, splitDepth > 0);
+        final List<ForkJoinTask<String>> parts = graph.parts;
+        try {
+            final PrintWriter main = sinks.apply(0);
+            this.formatRoot(value, graph.root == null ? name : graph.root, main, null, graph);
+            main.flush();
+            if (parts == null) {
+                return 1;
+            }
+            for (int i = 0; i < parts.size(); i++) {
+                final PrintWriter printWriter = sinks.apply(i + 1);
+                printWriter.write(parts.get(i).join());
+                printWriter.flush();
+            }
+            return parts.size() + 1;
+        } catch (RuntimeException | Error e) {
+            if (parts != null) {
+                for (ForkJoinTask<String> part : parts) {
+                    part.cancel(false);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 创建一次格式化操作的状态。
+     *
+     * @param name  根节点的名字
+     * @param split 是否拆分图
+     */
+    private Graph newGraph(String name, boolean split) {
+        return new Graph(compactIds ? name : null, dedupEdges, split ? new ArrayList<>() : null);
+    }
+
+    /**
+     * 将一个 Map 集合或对象作为图的根节点写入。
+     */
+    private void formatRoot(Object value, String node, PrintWriter printWriter, Boolean nameJoin, Graph graph) {
+        if (value instanceof Map) {
+            this.formatMap((Map<?, ?>) value, node, printWriter, nameJoin, 0, graph);
+        } else if (value instanceof Collection) {
+            this.formatCollection((Collection<?>) value, node, printWriter, 0, graph);
+        } else {
+            this.formatMap(StructuralCache.classToView(value.getClass(), value), node, printWriter, null, 0, graph);
+        }
+    }
+
+    /**
+     * 将一个 Map 中的所有键值对作为节点的子节点写入。
+     *
+     * @param data        要格式化的 Map 对象
+     * @param node        Map 对应的节点编号
+     * @param printWriter 转换结果的数据输出流
+     * @param nameJoin    是否拼接节点的名字，为 null 时由 DataObj 决定
+     * @param depth       Map 对应的节点所处的深度，根节点的深度为 0
+     * @param graph       当前格式化操作的状态
+     */
+    private void formatMap(Map<?, ?> data, String node, PrintWriter printWriter, Boolean nameJoin, int depth, Graph graph) {
         final boolean b = data instanceof DataObj;
         if (nameJoin == null && b) {
             nameJoin = ((DataObj) data).isNameJoin();
@@ -59,63 +343,262 @@ public class MermaidFormatter extends ManualFormatter {
         if (b) {
             printWriter.println(((DataObj) data).getPrefix());
         }
-        final boolean finalNameJoin = Boolean.TRUE.equals(nameJoin);
-        data.forEach((k, v) -> {
+        final boolean join = Boolean.TRUE.equals(nameJoin);
+        final int mark = graph.skipped;
+        graph.reserved++;
+        data.forEach((k, value) -> {
+            final Object v = this.wrapLazy(value);
             if (v == null) {
                 return;
             }
-            final String s1 = finalNameJoin ? name + '.' + k : k.toString();
+            if (this.isFull(graph)) {
+                graph.skipped++;
+                return;
+            }
+            final String label = k.toString();
+            final String child = graph.root != null ? graph.next() : join ? node + '.' + label : label;
             if (v instanceof Map) {
-                printWriter.append(String.format("%s==Map>Map==>%s\n", name, s1));
-                this.formatToStream((Map<?, ?>) v, s1, printWriter, finalNameJoin);
+                this.formatChild(node, MAP_TO_MAP, child, label, v, join, depth + 1, printWriter, graph);
             } else if (v instanceof Collection) {
-                printWriter.append(String.format("%s==Map>Collection==>%s\n", name, s1));
-                this.formatToStream((Collection<?>) v, s1, printWriter);
-            } else if (v instanceof String || v instanceof Number) {
-                printWriter.append(String.format("%s==Map>String/Number==>%s\n", name, s1));
-                printWriter.append(String.format("%s--Map>value-->%s\n", s1, s1 + "v{\"" + v + "\"}"));
+                this.formatChild(node, MAP_TO_COLLECTION, child, label, v, join, depth + 1, printWriter, graph);
+            } else if (v instanceof String || v instanceof Number || v instanceof Boolean || v instanceof Character) {
+                this.formatLeaf(node, MAP_TO_VALUE, child, label, MAP_VALUE, "v{\"", v, "\"}\n", printWriter, graph);
             } else {
-                printWriter.append(String.format("%s==Map>Object==>%s\n", name, s1));
-                this.formatToStream(v, v.getClass(), s1, printWriter);
+                this.formatChild(node, MAP_TO_OBJECT, child, label, v, null, depth + 1, printWriter, graph);
             }
         });
+        this.formatSkipped(node, mark, printWriter, graph);
     }
 
     /**
-     * 格式化一个 List 对象，会自动的将其中的 key 和 value 按照一定的格式进行解析和计算，获取到最终结果。
-     * <p>
-     * Formatting a Map object will automatically parse and calculate the key and value in a certain format to obtain the final result.!
+     * 将一个集合中的所有元素作为节点的子节点写入，元素的名字是它在集合中的序号。
      *
-     * @param data        要格式化的 List 对象
-     *                    <p>
-     *                    object to format
-     * @param name        在格式化操作中 需要做为 key 的名称
-     * @param printWriter 转换结果的数据输出流，转换的结果会存储进这个数据流中！
-     *                    <p>
-     *                    The data output stream of the conversion result, and the result of the conversion will be stored in this data stream!
+     * @param data        要格式化的集合
+     * @param node        集合对应的节点编号
+     * @param printWriter 转换结果的数据输出流
+     * @param depth       集合对应的节点所处的深度，根节点的深度为 0
+     * @param graph       当前格式化操作的状态
      */
-    @Override
-    public void formatToStream(Collection<?> data, String name, PrintWriter printWriter) {
-        final String s = name + '.';
+    private void formatCollection(Collection<?> data, String node, PrintWriter printWriter, int depth, Graph graph) {
+        final int mark = graph.skipped;
+        graph.reserved++;
         int index = 0;
-        for (Object datum : data) {
-            final String s1 = s + (++index);
+        for (Object element : data) {
+            ++index;
+            final Object datum = this.wrapLazy(element);
             if (datum == null) {
                 continue;
             }
+            if (this.isFull(graph)) {
+                graph.skipped++;
+                continue;
+            }
+            final String label = Integer.toString(index);
+            final String child = graph.root != null ? graph.next() : node + '.' + label;
             if (datum instanceof Map) {
-                printWriter.append(String.format("%s==Collection>Map==>%s\n", name, s1));
-                printWriter.append(this.format((Map<?, ?>) datum, s1));
+                this.formatChild(node, COLLECTION_TO_MAP, child, label, datum, null, depth + 1, printWriter, graph);
             } else if (datum instanceof Collection) {
-                printWriter.append(String.format("%s==Collection>Collection==>%s\n", name, s1));
-                printWriter.append(this.format((Collection<?>) datum, s1));
-            } else if (datum instanceof String || datum instanceof Number) {
-                printWriter.append(String.format("%s==Collection>String/Number==>%s\n", name, s1));
-                printWriter.append(String.format("%s--Collection>value-->%s\n", s1, s1 + "v((\"" + datum + "\"))"));
+                this.formatChild(node, COLLECTION_TO_COLLECTION, child, label, datum, null, depth + 1, printWriter, graph);
+            } else if (datum instanceof String || datum instanceof Number || datum instanceof Boolean || datum instanceof Character) {
+                this.formatLeaf(node, COLLECTION_TO_VALUE, child, label, COLLECTION_VALUE, "v((\"", datum, "\"))\n", printWriter, graph);
             } else {
-                printWriter.append(String.format("%s==Collection>Object==>%s\n", name, s1));
-                printWriter.append(this.format(datum, datum.getClass(), s1));
+                this.formatChild(node, COLLECTION_TO_OBJECT, child, label, datum, null, depth + 1, printWriter, graph);
             }
         }
+        this.formatSkipped(node, mark, printWriter, graph);
+    }
+
+    /**
+     * 写入一个 Map 集合或对象类型的子节点，如果子节点处于最大深度则只会概括其中的元素数量，处于拆分深度则会被拆分为单独的图。
+     */
+    private void formatChild(String node, String link, String child, String label, Object value, Boolean nameJoin, int depth, PrintWriter printWriter, Graph graph) {
+        graph.nodes++;
+        this.writeEdge(node, link, child, label, printWriter, graph);
+        if (maxDepth > 0 && depth >= maxDepth) {
+            this.writeMore(child, countOf(value), printWriter, graph);
+        } else if (graph.parts != null && depth >= splitDepth) {
+            this.formatPart(child, label, value, nameJoin, printWriter, graph);
+        } else if (value instanceof Map) {
+            this.formatMap((Map<?, ?>) value, child, printWriter, nameJoin, depth, graph);
+        } else if (value instanceof Collection) {
+            this.formatCollection((Collection<?>) value, child, printWriter, depth, graph);
+        } else {
+            this.formatMap(StructuralCache.classToView(value.getClass(), value), child, printWriter, null, depth, graph);
+        }
+    }
+
+    /**
+     * 写入一个标量类型的子节点与它的值。
+     */
+    private void formatLeaf(String node, String link, String child, String label, String valueLink, String valueStart, Object value, String valueEnd, PrintWriter printWriter, Graph graph) {
+        graph.nodes += 2;
+        this.writeEdge(node, link, child, label, printWriter, graph);
+        if (graph.edges != null && !graph.edges.add(child + valueLink + value)) {
+            return;
+        }
+        printWriter.append(child).append(valueLink).append(child).append(valueStart);
+        this.formatScalar(value, printWriter);
+        printWriter.append(valueEnd);
+    }
+
+    /**
+     * 将一个子节点拆分为单独的图，原本的图中会写入一个指向它的 `part N` 节点，拆分出来的图会被提交到线程池中生成。
+     */
+    private void formatPart(String child, String label, Object value, Boolean nameJoin, PrintWriter printWriter, Graph graph) {
+        final int part = graph.parts.size() + 1;
+        final String partNode = graph.root != null ? graph.next() : "part" + part;
+        graph.nodes++;
+        printWriter.append(child).append(TO_PART).append(partNode).append("[[\"part ").append(Integer.toString(part)).append("\"]]\n");
+        final String root = graph.root != null ? null : child;
+        graph.parts.add(ParallelChunks.submit(this.getForkJoinPool(), () -> {
+            final StringBuilderWriter writer = new StringBuilderWriter(1024);
+            final PrintWriter partWriter = new PrintWriter(writer, false);
+            final Graph partGraph = this.newGraph(label, false);
+            this.formatRoot(value, root == null ? partGraph.root : root, partWriter, nameJoin, partGraph);
+            partWriter.flush();
+            return writer.toString();
+        }));
+    }
+
+    /**
+     * 如果当前节点中有因为节点数量上限而被跳过的元素，则写入概括节点，并释放当前节点预留的位置。
+     *
+     * @param mark 开始格式化当前节点之前的跳过数量
+     */
+    private void formatSkipped(String node, int mark, PrintWriter printWriter, Graph graph) {
+        final int skipped = graph.skipped - mark;
+        graph.skipped = mark;
+        graph.reserved--;
+        if (skipped > 0) {
+            this.writeMore(node, skipped, printWriter, graph);
+        }
+    }
+
+    /**
+     * 判断是否还能写入一个子节点，每一个子节点都需要两个位置：标量需要键节点与值节点，达到最大深度的节点与被拆分的节点需要它自己与 `+N more` 或 `part N` 节点，展开的节点需要它自己与预留的概括节点。
+     */
+    private boolean isFull(Graph graph) {
+        return maxNodes > 0 && graph.nodes + graph.reserved + 2 > maxNodes;
+    }
+
+    /**
+     * 写入一条从父节点指向子节点的边，使用紧凑的节点编号时，节点第一次出现的时候会同时声明它的标签。
+     *
+     * @param from        父节点编号
+     * @param link        边的字符串
+     * @param to          子节点编号
+     * @param label       子节点的名字
+     * @param printWriter 转换结果的数据输出流
+     * @param graph       当前格式化操作的状态
+     */
+    private void writeEdge(String from, String link, String to, String label, PrintWriter printWriter, Graph graph) {
+        if (graph.edges != null && !graph.edges.add(from + link + to)) {
+            return;
+        }
+        this.writeFrom(from, printWriter, graph);
+        printWriter.write(link);
+        printWriter.write(to);
+        if (graph.root != null) {
+            writeLabel(label, printWriter);
+        }
+        printWriter.write('\n');
+    }
+
+    /**
+     * 写入一条边的起始节点，根节点在第一条边中声明它的标签。
+     */
+    private void writeFrom(String from, PrintWriter printWriter, Graph graph) {
+        printWriter.write(from);
+        if (graph.rootLabel != null) {
+            writeLabel(graph.rootLabel, printWriter);
+            graph.rootLabel = null;
+        }
+    }
+
+    /**
+     * 写入一个概括被省略的元素数量的 `+N more` 节点。
+     */
+    private void writeMore(String node, int count, PrintWriter printWriter, Graph graph) {
+        graph.nodes++;
+        this.writeFrom(node, printWriter, graph);
+        printWriter.append(TO_MORE).append(graph.root != null ? graph.next() : node + "_more");
+        printWriter.write("[\"+");
+        NumberWriter.writeInt(printWriter, count);
+        printWriter.write(" more\"]\n");
+    }
+
+    private static void writeLabel(String label, PrintWriter printWriter) {
+        printWriter.write("[\"");
+        Escaper.MERMAID.write(printWriter, label);
+        printWriter.write("\"]");
+    }
+
+    /**
+     * @return Map 集合或对象中的元素数量，只能遍历一次的集合会被遍历计数
+     */
+    private static int countOf(Object value) {
+        if (value instanceof LazyCollection) {
+            int count = 0;
+            for (Object ignored : (Collection<?>) value) {
+                count++;
+            }
+            return count;
+        } else if (value instanceof Map) {
+            return ((Map<?, ?>) value).size();
+        } else if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        }
+        return StructuralCache.getAccessors(value.getClass()).length;
+    }
+
+    /**
+     * 将一个字符串、数值或布尔类型的值直接写入到数据流中，数值不会被转换为临时的字符串。
+     *
+     * @param value       需要被写入的值
+     * @param printWriter 转换结果的数据输出流
+     */
+    private void formatScalar(Object value, PrintWriter printWriter) {
+        if (value instanceof Number) {
+            NumberWriter.writeNumber(printWriter, (Number) value);
+        } else {
+            Escaper.MERMAID.write(printWriter, value.toString());
+        }
+    }
+
+    /**
+     * 一次格式化操作的状态，包括紧凑的节点编号、已经输出的节点数量、已经输出的边以及拆分出来的图。
+     */
+    private static final class Graph {
+        /**
+         * 使用紧凑的节点编号时根节点的编号，为 null 代表不使用紧凑的节点编号。
+         */
+        private final String root;
+        /**
+         * 根节点的标签，在第一条边中声明之后会被清空。
+         */
+        private String rootLabel;
+        private final Set<String> edges;
+        private final List<ForkJoinTask<String>> parts;
+        private int count;
+        /**
+         * 已经写入的节点数量，根节点从一开始就被计数。
+         */
+        private int nodes = 1;
+        /**
+         * 还没有输出完毕的节点为概括节点预留的位置数量。
+         */
+        private int reserved;
+        private int skipped;
+
+        Graph(String rootLabel, boolean dedupEdges, List<ForkJoinTask<String>> parts) {
+            this.root = rootLabel == null ? null : "n0";
+            this.rootLabel = rootLabel;
+            this.edges = dedupEdges ? new HashSet<>() : null;
+            this.parts = parts;
+        }
+
+        String next() {
+            return "n" + (++count);
+        }
     }
 }
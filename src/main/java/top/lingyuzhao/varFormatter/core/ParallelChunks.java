@@ -0,0 +1,115 @@
+package top.lingyuzhao.varFormatter.core;
+
+import top.lingyuzhao.varFormatter.utils.StringBuilderWriter;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * 集合的并行格式化工具，此工具会将集合切分为多个块，每一个块在 ForkJoinPool 中被格式化到单独的缓冲区，之后再按照原本的顺序写入到数据流中，因此输出结果与顺序格式化完全一致。
+ * <p>
+ * Parallel formatting of collections. The collection is split into chunks, every chunk is formatted into its own buffer on a ForkJoinPool, and the buffers are then written into the stream in the original order, so the output is identical to sequential formatting.
+ *
+ * @author zhao
+ */
+final class ParallelChunks {
+
+    private ParallelChunks() {
+    }
+
+    /**
+     * 格式化集合中的一个元素。
+     */
+    @FunctionalInterface
+    interface ElementFormatter {
+        /**
+         * @param element     需要被格式化的元素
+         * @param first       是否是整个集合中的第一个元素
+         * @param printWriter 块的缓冲区
+         */
+        void format(Object element, boolean first, PrintWriter printWriter);
+    }
+
+    /**
+     * 并行的格式化一个集合，RandomAccess 的 List 会直接按照索引切分，其它集合会在遍历的时候按照块的大小收集元素。
+     *
+     * @param data        需要被格式化的集合
+     * @param chunkSize   每一个块中的元素数量
+     * @param pool        执行格式化任务的线程池
+     * @param formatter   元素的格式化逻辑
+     * @param printWriter 转换结果的数据输出流
+     */
+    static void format(Collection<?> data, int chunkSize, ForkJoinPool pool, ElementFormatter formatter, PrintWriter printWriter) {
+        final List<ForkJoinTask<String>> tasks = new ArrayList<>();
+        try {
+            if (data instanceof List && data instanceof RandomAccess) {
+                final List<?> list = (List<?>) data;
+                final int size = list.size();
+                for (int from = 0; from < size; from += chunkSize) {
+                    final List<?> chunk = list.subList(from, Math.min(size, from + chunkSize));
+                    final boolean firstChunk = from == 0;
+                    tasks.add(submit(pool, () -> render(chunk, firstChunk, formatter)));
+                }
+            } else {
+                final Iterator<?> iterator = data.iterator();
+                boolean firstChunk = true;
+                while (iterator.hasNext()) {
+                    final Object[] buffer = new Object[chunkSize];
+                    int length = 0;
+                    while (length < chunkSize && iterator.hasNext()) {
+                        buffer[length++] = iterator.next();
+                    }
+                    final List<?> chunk = Arrays.asList(length == chunkSize ? buffer : Arrays.copyOf(buffer, length));
+                    final boolean isFirst = firstChunk;
+                    tasks.add(submit(pool, () -> render(chunk, isFirst, formatter)));
+                    firstChunk = false;
+                }
+            }
+            // 按照顺序等待每一个块并写入
+            for (ForkJoinTask<String> task : tasks) {
+                printWriter.write(task.join());
+            }
+        } catch (RuntimeException | Error e) {
+            for (ForkJoinTask<String> task : tasks) {
+                task.cancel(false);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 将一个任务提交到线程池中，如果当前线程已经处于同一个线程池中则会直接放入当前线程的队列。
+     *
+     * @param pool     执行任务的线程池
+     * @param callable 任务
+     * @param <T>      任务结果的类型
+     * @return 已经提交的任务
+     */
+    static <T> ForkJoinTask<T> submit(ForkJoinPool pool, Callable<T> callable) {
+        final ForkJoinTask<T> task = ForkJoinTask.adapt(callable);
+        if (ForkJoinTask.getPool() == pool) {
+            // 已经处于同一个线程池中 例如嵌套的大集合 直接放入当前线程的队列
+            task.fork();
+        } else {
+            pool.execute(task);
+        }
+        return task;
+    }
+
+    private static String render(List<?> chunk, boolean firstChunk, ElementFormatter formatter) {
+        final StringBuilderWriter writer = new StringBuilderWriter(chunk.size() * 32);
+        final PrintWriter printWriter = new PrintWriter(writer, false);
+        for (int i = 0; i < chunk.size(); i++) {
+            formatter.format(chunk.get(i), firstChunk && i == 0, printWriter);
+        }
+        return writer.toString();
+    }
+}
@@ -0,0 +1,277 @@
+package top.lingyuzhao.varFormatter.core;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.BaseStream;
+
+/**
+ * 共享引用表，在格式化开始之前会先遍历一次对象图，找出所有被引用了不止一次的对象（包括环），格式化的时候这些对象只会被完整的输出一次，之后再次出现时只会输出对它的引用。
+ * <p>
+ * Shared reference table. Before formatting starts the object graph is walked once to find every object that is reached more than once (cycles included). While formatting, such an object is written in full only once and every later occurrence is written as a reference to it.
+ * <p>
+ * 预先遍历使用的是基于对象身份的开放寻址表，遍历结束之后只有被共享的对象会被保留下来，因此对于树形的数据，格式化过程中的引用表是空的，不会带来额外的开销。Iterator 与 Stream 之类只能遍历一次的数据源不会在预先遍历中被读取。
+ * <p>
+ * The pre-pass uses an open addressing identity table and only the shared objects are kept afterwards, so for tree shaped input the table is empty while formatting and costs nothing. Single pass sources such as Iterator and Stream are not read by the pre-pass.
+ *
+ * @author zhao
+ */
+final class ReferenceTable {
+
+    /**
+     * 当前线程中正在进行的格式化操作所使用的引用表。
+     */
+    private static final ThreadLocal<ReferenceTable> CURRENT = new ThreadLocal<>();
+
+    private final ManualFormatter owner;
+    private Object[] keys;
+    /**
+     * 0 代表对象被共享但还没有分配编号，正数代表已经分配编号但是还没有开始输出，负数代表已经开始输出。不能携带引用编号的集合只会使用 0 与 -1，-1 代表集合正在输出。
+     */
+    private int[] values;
+    private int size;
+    private int nextId;
+
+    private ReferenceTable(ManualFormatter owner, int capacity) {
+        this.owner = owner;
+        this.keys = new Object[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * @param owner 格式化组件
+     * @return 如果此格式化组件在当前线程中已经打开了引用表则返回 true
+     */
+    static boolean isOpen(ManualFormatter owner) {
+        final ReferenceTable table = CURRENT.get();
+        return table != null && table.owner == owner;
+    }
+
+    /**
+     * 获取格式化组件在当前线程中正在使用的引用表。
+     *
+     * @param owner 格式化组件
+     * @return 引用表，如果没有打开或者没有任何被共享的对象则返回 null
+     */
+    static ReferenceTable current(ManualFormatter owner) {
+        final ReferenceTable table = CURRENT.get();
+        return table != null && table.owner == owner && table.size > 0 ? table : null;
+    }
+
+    /**
+     * 遍历需要被格式化的数据并为当前线程打开引用表，必须在 finally 中使用返回值调用 {@link #close(ReferenceTable)}。
+     *
+     * @param owner 格式化组件
+     * @param root  需要被格式化的数据
+     * @return 之前打开的引用表
+     */
+    static ReferenceTable open(ManualFormatter owner, Object root) {
+        final ReferenceTable previous = CURRENT.get();
+        CURRENT.set(scan(owner, root));
+        return previous;
+    }
+
+    /**
+     * 关闭当前线程的引用表并恢复之前的引用表。
+     *
+     * @param previous {@link #open(ManualFormatter, Object)} 的返回值
+     */
+    static void close(ReferenceTable previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * 获取一个对象的引用编号，第一次获取的时候会分配编号。
+     *
+     * @param identity 对象
+     * @return 对象的引用编号，如果对象没有被共享则返回 0
+     */
+    int idOf(Object identity) {
+        final int slot = this.slot(identity);
+        if (keys[slot] == null) {
+            return 0;
+        }
+        final int value = values[slot];
+        if (value == 0) {
+            return values[slot] = ++nextId;
+        }
+        return Math.abs(value);
+    }
+
+    /**
+     * @param identity 被共享的对象
+     * @return 如果对象已经开始输出了，之后只需要输出对它的引用，则返回 true
+     */
+    boolean isWritten(Object identity) {
+        final int slot = this.slot(identity);
+        return keys[slot] != null && values[slot] < 0;
+    }
+
+    /**
+     * 标记一个被共享的对象已经开始输出。
+     *
+     * @param identity 被共享的对象
+     * @return 如果这是对象第一次开始输出则返回 true，否则代表应当输出对它的引用
+     */
+    boolean markWritten(Object identity) {
+        final int slot = this.slot(identity);
+        if (keys[slot] == null || values[slot] < 0) {
+            return false;
+        }
+        if (values[slot] == 0) {
+            values[slot] = ++nextId;
+        }
+        values[slot] = -values[slot];
+        return true;
+    }
+
+    /**
+     * @param identity 对象
+     * @return 如果对象被共享则返回 true
+     */
+    boolean isShared(Object identity) {
+        return keys[this.slot(identity)] != null;
+    }
+
+    /**
+     * 标记一个不能携带引用编号的集合开始输出，输出结束之后需要调用 {@link #exit(Object)}，被共享但没有形成环的集合可以被多次完整的输出。
+     *
+     * @param identity 集合
+     * @return 如果集合已经在输出中，也就是集合直接或间接的包含了自己，则返回 false
+     */
+    boolean enter(Object identity) {
+        final int slot = this.slot(identity);
+        if (keys[slot] == null) {
+            return true;
+        }
+        if (values[slot] < 0) {
+            return false;
+        }
+        values[slot] = -1;
+        return true;
+    }
+
+    /**
+     * 标记一个不能携带引用编号的集合输出结束。
+     *
+     * @param identity {@link #enter(Object)} 中的集合
+     */
+    void exit(Object identity) {
+        final int slot = this.slot(identity);
+        if (keys[slot] != null) {
+            values[slot] = 0;
+        }
+    }
+
+    /**
+     * 获取一个对象在表中的位置，如果对象不在表中则返回它应当被放置的空位置。
+     */
+    private int slot(Object key) {
+        final int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        Object k;
+        while ((k = keys[i]) != null && k != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * 将一个对象加入表中。
+     *
+     * @return 如果对象之前不在表中则返回 true
+     */
+    private boolean add(Object key) {
+        int slot = this.slot(key);
+        if (keys[slot] != null) {
+            return false;
+        }
+        if ((size + 1) << 1 > keys.length) {
+            this.grow();
+            slot = this.slot(key);
+        }
+        keys[slot] = key;
+        size++;
+        return true;
+    }
+
+    private void grow() {
+        final Object[] oldKeys = keys;
+        final int[] oldValues = values;
+        keys = new Object[oldKeys.length << 1];
+        values = new int[oldKeys.length << 1];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                final int slot = this.slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(Object key) {
+        final int h = System.identityHashCode(key) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 遍历对象图并找出所有被共享的 Map、集合与对象。
+     */
+    private static ReferenceTable scan(ManualFormatter owner, Object root) {
+        final ReferenceTable visited = new ReferenceTable(owner, 64);
+        final ReferenceTable shared = new ReferenceTable(owner, 8);
+        final ArrayDeque<Object> stack = new ArrayDeque<>();
+        if (root != null) {
+            stack.push(root);
+        }
+        while (!stack.isEmpty()) {
+            final Object value = stack.pop();
+            if (isLeaf(value, owner.isLazyIterables())) {
+                continue;
+            }
+            if (!visited.add(value)) {
+                shared.add(value);
+                continue;
+            }
+            if (value instanceof Map) {
+                for (Object v : ((Map<?, ?>) value).values()) {
+                    if (v != null) {
+                        stack.push(v);
+                    }
+                }
+            } else if (value instanceof Collection) {
+                for (Object v : (Collection<?>) value) {
+                    if (v != null) {
+                        stack.push(v);
+                    }
+                }
+            } else {
+                for (FieldAccessor accessor : StructuralCache.getAccessors(value.getClass())) {
+                    if (accessor.getKind() == FieldAccessor.KIND_OBJECT) {
+                        final Object v = accessor.get(value);
+                        if (v != null) {
+                            stack.push(v);
+                        }
+                    }
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * @return 如果数据会被作为标量输出，或者是只能遍历一次的数据源，则返回 true
+     */
+    private static boolean isLeaf(Object value, boolean iterables) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum || value instanceof Class
+                || value instanceof Iterator || value instanceof BaseStream || value instanceof Spliterator
+                || (iterables && value instanceof Iterable && !(value instanceof Collection));
+    }
+}
@@ -1,7 +1,16 @@
 package top.lingyuzhao.varFormatter.core;
 
+import top.lingyuzhao.varFormatter.annotation.FormatField;
+import top.lingyuzhao.varFormatter.annotation.FormatIgnore;
+import top.lingyuzhao.varFormatter.annotation.FormatNaming;
+import top.lingyuzhao.varFormatter.annotation.Formattable;
+import top.lingyuzhao.varFormatter.annotation.NamingStrategy;
+
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -13,14 +22,221 @@ import java.util.Map;
  */
 public final class StructuralCache {
     /**
-     * 类与 Map 结构的缓冲池，能够减少反射代价。为了安全考虑，此缓冲池不得进行修改！！！
+     * 空类对应的字段结构。
      * <p>
-     * A buffer pool with class and Map structures can reduce reflection costs. For safety reasons, this buffer pool cannot be modified!!!
+     * The field structure corresponding to an empty class.
      */
-    private final static HashMap<Class<?>, Field[]> CACHE = new HashMap<>();
+    private final static FieldAccessor[] EMPTY = new FieldAccessor[0];
 
-    static {
-        CACHE.put(null, new Field[0]);
+    /**
+     * 默认最多缓存的类的数量，可以通过系统属性 varFormatter.cache.maxClasses 修改。
+     * <p>
+     * Default maximum number of cached classes, can be changed with the system property varFormatter.cache.maxClasses.
+     */
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    /**
+     * 最多缓存的类的数量，同时也是每一个格式化组件中格式化计划的缓存上限。
+     */
+    private static volatile int maxSize = Integer.getInteger("varFormatter.cache.maxClasses", DEFAULT_MAX_SIZE);
+
+    /**
+     * 类与 Map 结构的缓冲池，能够减少反射代价。此缓冲池基于 ClassValue 实现，读取时无锁且线程安全，不会阻止类被卸载，超过容量上限时最少使用的类会被淘汰，其中存储的是每个字段已经编译好的访问器，为了安全考虑，此缓冲池不得进行修改！！！
+     * <p>
+     * A buffer pool with class and Map structures can reduce reflection costs. It is backed by ClassValue, so reads are lock-free and thread-safe and classes can still be unloaded, the least used classes are evicted beyond the capacity limit, and it stores the compiled accessor of every field. For safety reasons, this buffer pool cannot be modified!!!
+     */
+    private final static ClassCache<FieldAccessor[]> CACHE = new ClassCache<>(StructuralCache::parse, StructuralCache::getMaxSize);
+
+    /**
+     * 解析一个类中所有字段的访问器。
+     *
+     * @param type 需要被解析的类
+     * @return 类中的所有字段对应的访问器
+     */
+    private static FieldAccessor[] parse(Class<?> type) {
+        // 优先使用编译时生成的结构读取器
+        final GeneratedStructure structure = loadGenerated(type);
+        if (structure != null) {
+            final int length = structure.getNames().length;
+            final FieldAccessor[] accessors = new FieldAccessor[length];
+            for (int i = 0; i < length; i++) {
+                accessors[i] = FieldAccessor.of(structure, i);
+            }
+            return accessors;
+        }
+        final Map<String, Field> fields = fieldsOf(type);
+        if (fields.isEmpty()) {
+            return EMPTY;
+        }
+        final FieldAccessor[] accessors = new FieldAccessor[fields.size()];
+        int i = 0;
+        for (Map.Entry<String, Field> entry : fields.entrySet()) {
+            accessors[i++] = FieldAccessor.of(entry.getValue(), entry.getKey());
+        }
+        return accessors;
+    }
+
+    /**
+     * 获取一个类中所有需要被格式化的字段，键是字段在格式化结果中的键名。
+     * <p>
+     * 父类的字段在前，子类的字段在后，被子类中同名字段隐藏的父类字段会被替换掉。static transient 与编译器生成的字段会被跳过，除非字段被 {@link FormatField} 标记，被 {@link FormatIgnore} 标记的字段总是会被跳过。JDK 中的父类不会被解析。
+     * <p>
+     * Superclass fields come first and subclass fields after them, a superclass field hidden by a subclass field with the same key is replaced. static, transient and synthetic fields are skipped unless marked with {@link FormatField}, and fields marked with {@link FormatIgnore} are always skipped. Superclasses from the JDK are not parsed.
+     *
+     * @param type 需要被解析的类
+     * @return 字段的键名与字段
+     */
+    private static Map<String, Field> fieldsOf(Class<?> type) {
+        final ArrayDeque<Class<?>> hierarchy = new ArrayDeque<>();
+        hierarchy.push(type);
+        for (Class<?> c = type.getSuperclass(); c != null && !isPlatformType(c.getName()); c = c.getSuperclass()) {
+            hierarchy.push(c);
+        }
+        final FormatNaming naming = type.getAnnotation(FormatNaming.class);
+        final NamingStrategy strategy = naming == null ? NamingStrategy.IDENTITY : naming.value();
+        final Map<String, Field> fields = new LinkedHashMap<>();
+        for (Class<?> c : hierarchy) {
+            for (Field field : c.getDeclaredFields()) {
+                if (field.isAnnotationPresent(FormatIgnore.class)) {
+                    continue;
+                }
+                final FormatField formatField = field.getAnnotation(FormatField.class);
+                final int modifiers = field.getModifiers();
+                if (formatField == null && (field.isSynthetic() || Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers))) {
+                    continue;
+                }
+                final String name = formatField == null || formatField.value().isEmpty() ? strategy.apply(field.getName()) : formatField.value();
+                // 先移除再放入 使子类的字段位于父类字段之后
+                fields.remove(name);
+                fields.put(name, field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * 判断一个类是否是 JDK 中的类，JDK 中的父类不会被解析。此规则按照包名判断，与注解处理器生成结构读取器时使用的规则是同一个，平台类加载器加载的类（例如 java.sql.Timestamp）同样会被跳过。
+     * <p>
+     * Whether a class belongs to the JDK, JDK superclasses are not parsed. The rule goes by package name and is the same rule the annotation processor uses when generating structure readers, so classes loaded by the platform class loader, such as java.sql.Timestamp, are skipped as well.
+     *
+     * @param className 类的完整名字
+     * @return 是否是 JDK 中的类
+     */
+    public static boolean isPlatformType(String className) {
+        return className.startsWith("java.") || className.startsWith("javax.") || className.startsWith("jdk.") || className.startsWith("sun.");
+    }
+
+    /**
+     * 加载一个类在编译时生成的结构读取器，只有被 {@link Formattable} 标记的类才会尝试加载。
+     *
+     * @param type 需要被解析的类
+     * @return 结构读取器，如果不存在则返回 null
+     */
+    private static GeneratedStructure loadGenerated(Class<?> type) {
+        if (!type.isAnnotationPresent(Formattable.class)) {
+            return null;
+        }
+        try {
+            final Class<?> aClass = Class.forName(type.getName() + GeneratedStructure.SUFFIX, true, type.getClassLoader());
+            return (GeneratedStructure) aClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            // 编译时没有启用注解处理器 回退到反射
+            return null;
+        }
+    }
+
+    /**
+     * 获取到一个类的所有字段的访问器，此操作会优先从缓冲池中获取。
+     *
+     * @param dataClass 需要被解析的类
+     * @return 类中的所有字段对应的访问器，此数组是缓冲池中的数据，不得进行修改！
+     * <p>
+     * The accessors of all fields in the class. This array belongs to the buffer pool and must not be modified!
+     */
+    public static FieldAccessor[] getAccessors(Class<?> dataClass) {
+        if (dataClass == null) {
+            return EMPTY;
+        }
+        return CACHE.get(dataClass);
+    }
+
+    /**
+     * @return 最多缓存的类的数量，为 0 代表没有上限
+     * <p>
+     * The maximum number of cached classes, 0 means unlimited
+     */
+    public static int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 设置最多缓存的类的数量，此上限同时也作用于每一个格式化组件中的格式化计划缓存，超出的类会被立即淘汰，格式化计划缓存会在下一次缓存新的类时淘汰。
+     * <p>
+     * Set the maximum number of cached classes. The limit also applies to the format plan cache of every formatter. Classes beyond it are evicted at once, format plan caches evict on their next new class.
+     *
+     * @param maxSize 最多缓存的类的数量，设置为 0 代表没有上限
+     *                <p>
+     *                The maximum number of cached classes, 0 means unlimited
+     */
+    public static void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative: " + maxSize);
+        }
+        StructuralCache.maxSize = maxSize;
+        CACHE.trim();
+    }
+
+    /**
+     * @return 缓冲池的命中次数
+     * <p>
+     * Number of cache hits
+     */
+    public static long getHitCount() {
+        return CACHE.getHitCount();
+    }
+
+    /**
+     * @return 缓冲池的未命中次数，同时也是解析类的次数，被淘汰的类再次使用时会被重新解析
+     * <p>
+     * Number of cache misses, which is also the number of times a class was parsed. An evicted class is parsed again when used again
+     */
+    public static long getMissCount() {
+        return CACHE.getMissCount();
+    }
+
+    /**
+     * @return 因为超过容量上限而被淘汰的类的数量
+     * <p>
+     * Number of classes evicted because the capacity limit was exceeded
+     */
+    public static long getEvictionCount() {
+        return CACHE.getEvictionCount();
+    }
+
+    /**
+     * @return 当前缓存的类的数量
+     * <p>
+     * Number of classes currently cached
+     */
+    public static int size() {
+        return CACHE.size();
+    }
+
+    /**
+     * 将一个类的结构直接解析为 Map 的视图，此视图不会复制字段中的数据，而是在读取时直接从对象中获取，因此不会产生中间的 Map 对象。
+     * <p>
+     * Parse the structure of a class directly into a Map view. The view does not copy field data but reads it from the object on demand, so no intermediate Map is produced.
+     *
+     * @param dataClass 需要被解析的类
+     * @param data      对应的实例
+     * @return 对象字段的只读 Map 视图
+     */
+    public static Map<String, Object> classToView(Class<?> dataClass, Object data) {
+        final FieldAccessor[] accessors = getAccessors(dataClass);
+        if (FormatterMetrics.active) {
+            FormatterMetrics.visit(accessors.length);
+        }
+        return new FieldMapView(dataClass, accessors, data);
     }
 
     /**
@@ -43,30 +259,12 @@ public final class StructuralCache {
      * @return 解析之后的 Map 结构（如果解析失败，返回null）
      */
     public static Map<?, ?> classToMap(Class<?> dataClass, Object data, HashMap<String, Object> map) {
-        final Field[] declaredFields;
         // 检查这个类是否被缓存过
-        {
-            final Field[] map1 = CACHE.get(dataClass);
-            if (map1 != null) {
-                declaredFields = map1;
-            } else {
-                // 没有缓存过就解析结构 然后缓存
-                declaredFields = dataClass.getDeclaredFields();
-                // 缓存
-                CACHE.put(dataClass, declaredFields);
-            }
-        }
+        final FieldAccessor[] accessors = getAccessors(dataClass);
         // 最后计算
-        try {
-            for (Field declaredField : declaredFields) {
-                declaredField.setAccessible(true);
-                final Object o = declaredField.get(data);
-                map.put(declaredField.getName(), o);
-            }
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
+        for (FieldAccessor accessor : accessors) {
+            map.put(accessor.getName(), accessor.get(data));
         }
-
         return map;
     }
 }
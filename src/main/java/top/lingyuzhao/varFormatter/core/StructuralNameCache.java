@@ -2,8 +2,6 @@ package top.lingyuzhao.varFormatter.core;
 
 import top.lingyuzhao.utils.StrUtils;
 
-import java.util.HashMap;
-
 /**
  * 类与类名字的缓冲池，在这里将可以自动的将类的名字解析出来并进行缓存！
  * <p>
@@ -13,15 +11,19 @@ import java.util.HashMap;
  */
 public final class StructuralNameCache {
     /**
-     * 类与 Map 结构的缓冲池，能够减少反射代价。为了安全考虑，此缓冲池不得进行修改！！！
-     * <p>
-     * A buffer pool with class and Map structures can reduce reflection costs. For safety reasons, this buffer pool cannot be modified!!!
+     * 最多缓存的类的数量。
      */
-    private final static HashMap<Class<?>, String> CACHE = new HashMap<>();
+    private static volatile int maxSize = Integer.getInteger("varFormatter.cache.maxClasses", StructuralCache.DEFAULT_MAX_SIZE);
 
-    static {
-        CACHE.put(null, "root");
-    }
+    /**
+     * 类与 Map 结构的缓冲池，能够减少反射代价。此缓冲池基于 ClassValue 实现，读取时无锁且线程安全，不会阻止类被卸载，超过容量上限时最少使用的类会被淘汰，为了安全考虑，此缓冲池不得进行修改！！！
+     * <p>
+     * A buffer pool with class and Map structures can reduce reflection costs. It is backed by ClassValue, so reads are lock-free and thread-safe and classes can still be unloaded, the least used classes are evicted beyond the capacity limit. For safety reasons, this buffer pool cannot be modified!!!
+     */
+    private final static ClassCache<String> CACHE = new ClassCache<>(type -> {
+        final String[] strings = StrUtils.splitBy(type.getName(), '$');
+        return strings[strings.length - 1];
+    }, StructuralNameCache::getMaxSize);
 
     /**
      * 将一个类的结构直接解析为 类的名字，便于其它操作所需。
@@ -30,20 +32,72 @@ public final class StructuralNameCache {
      * @return 解析之后的 Map 结构（如果解析失败，返回null）
      */
     public static String classToName(Class<?> dataClass) {
-        final String name;
+        if (dataClass == null) {
+            return "root";
+        }
         // 检查这个类是否被缓存过
-        {
-            final String name_temp = CACHE.get(dataClass);
-            if (name_temp != null) {
-                name = name_temp;
-            } else {
-                // 没有缓存过就解析结构 然后缓存
-                final String[] strings = StrUtils.splitBy(dataClass.getName(), '$');
-                name = strings[strings.length - 1];
-                // 缓存
-                CACHE.put(dataClass, name);
-            }
+        return CACHE.get(dataClass);
+    }
+
+    /**
+     * @return 最多缓存的类的数量，为 0 代表没有上限
+     * <p>
+     * The maximum number of cached classes, 0 means unlimited
+     */
+    public static int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 设置最多缓存的类的数量，超出的类会被立即淘汰。
+     * <p>
+     * Set the maximum number of cached classes, classes beyond it are evicted at once.
+     *
+     * @param maxSize 最多缓存的类的数量，设置为 0 代表没有上限
+     *                <p>
+     *                The maximum number of cached classes, 0 means unlimited
+     */
+    public static void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative: " + maxSize);
         }
-        return name;
+        StructuralNameCache.maxSize = maxSize;
+        CACHE.trim();
+    }
+
+    /**
+     * @return 缓冲池的命中次数
+     * <p>
+     * Number of cache hits
+     */
+    public static long getHitCount() {
+        return CACHE.getHitCount();
+    }
+
+    /**
+     * @return 缓冲池的未命中次数，被淘汰的类再次使用时会再次未命中
+     * <p>
+     * Number of cache misses, an evicted class misses again when used again
+     */
+    public static long getMissCount() {
+        return CACHE.getMissCount();
+    }
+
+    /**
+     * @return 因为超过容量上限而被淘汰的类的数量
+     * <p>
+     * Number of classes evicted because the capacity limit was exceeded
+     */
+    public static long getEvictionCount() {
+        return CACHE.getEvictionCount();
+    }
+
+    /**
+     * @return 当前缓存的类的数量
+     * <p>
+     * Number of classes currently cached
+     */
+    public static int size() {
+        return CACHE.size();
     }
 }
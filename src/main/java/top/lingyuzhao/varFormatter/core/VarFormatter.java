@@ -63,6 +63,9 @@ public enum VarFormatter {
      */
     VarFormatter(Formatter formatter) {
         this.formatter = formatter;
+        if (formatter instanceof ManualFormatter) {
+            ((ManualFormatter) formatter).bindFormatterType(this);
+        }
     }
 
     /**
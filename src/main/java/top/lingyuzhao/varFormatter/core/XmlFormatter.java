@@ -1,8 +1,11 @@
 package top.lingyuzhao.varFormatter.core;
 
 import top.lingyuzhao.utils.ASClass;
+import top.lingyuzhao.varFormatter.utils.Escaper;
+import top.lingyuzhao.varFormatter.utils.NumberWriter;
 import top.lingyuzhao.varFormatter.utils.XmlNodeObj;
 
+import java.io.PrintWriter;
 import java.util.Collection;
 import java.util.Map;
 
@@ -31,6 +34,13 @@ public class XmlFormatter extends JsonFormatter {
         return this.formatName_start(name, o);
     }
 
+    @Override
+    protected void headerToStream(String name, Object o, PrintWriter printWriter) {
+        if (name != null) {
+            this.formatName_startToStream(name, o, printWriter);
+        }
+    }
+
     /**
      * @param name 需要被格式化的对象的名字。
      * @return 一个数据类型的起始字符串
@@ -64,9 +74,50 @@ public class XmlFormatter extends JsonFormatter {
             // 代表可能有属性
             name += ((XmlNodeObj) o).getAttrStr();
         }
+        final int id = this.referenceId(o);
+        if (id != 0) {
+            name += (id < 0 ? " idref=\"" + -id : " id=\"" + id) + '"';
+        }
         return '<' + name + '>';
     }
 
+    /**
+     * 将起始标签直接写入到数据流中，XmlNodeObj 的属性会使用节点中缓存的属性字符串写入，不会生成临时的标签字符串。
+     * <p>
+     * Write the start tag straight into the stream. The attributes of an XmlNodeObj are written from the attribute string cached in the node, no temporary tag string is built.
+     */
+    @Override
+    protected void formatName_startToStream(String name, Object o, PrintWriter printWriter) {
+        printWriter.write('<');
+        printWriter.write(name);
+        if (o instanceof XmlNodeObj) {
+            ((XmlNodeObj) o).writeAttrs(printWriter);
+        }
+        final int id = this.referenceId(o);
+        if (id != 0) {
+            printWriter.write(id < 0 ? " idref=\"" : " id=\"");
+            NumberWriter.writeInt(printWriter, Math.abs(id));
+            printWriter.write('"');
+        }
+        printWriter.write('>');
+    }
+
+    /**
+     * 被共享的对象第一次输出时使用 id 属性，之后使用 idref 属性。
+     *
+     * @param o 需要被进行格式化的字段的值
+     * @return 对象的引用编号，需要写入 idref 属性时为负数，不需要写入任何属性时为 0
+     */
+    private int referenceId(Object o) {
+        final ReferenceTable references = o == null ? null : this.getReferences();
+        if (references == null) {
+            return 0;
+        }
+        final Object identity = o instanceof FieldMapView ? ((FieldMapView) o).getData() : o;
+        final int id = references.idOf(identity);
+        return id != 0 && references.isWritten(identity) ? -id : id;
+    }
+
     /**
      * 格式化数据 此函数用来将字段的名字进行格式化操作，需要注意的是 这里是用于在数值格式化完毕之后的格式化，也是结尾格式化，例如 `json` 中的格式化就是 `return ","`
      *
@@ -103,6 +154,51 @@ public class XmlFormatter extends JsonFormatter {
         return this.formatName_End(name, o);
     }
 
+    /**
+     * 格式化数据 此函数用来生成两个元素之间的分隔符，`xml` 中的元素之间不需要分隔符。
+     * <p>
+     * Format data. This function produces the separator between two elements, `xml` elements need no separator.
+     *
+     * @return 空字符串
+     * <p>
+     * An empty string
+     */
+    @Override
+    protected String formatSeparator() {
+        return "";
+    }
+
+    /**
+     * 引用编号已经作为 id 属性写入到起始标签中，这里不需要写入任何内容。
+     * <p>
+     * The reference id is already written as the id attribute of the start tag, nothing needs to be written here.
+     */
+    @Override
+    protected boolean formatReferenceId(int id, PrintWriter printWriter) {
+        return false;
+    }
+
+    /**
+     * 引用已经作为 idref 属性写入到起始标签中，被引用的对象的内容不会再次输出。
+     * <p>
+     * The reference is already written as the idref attribute of the start tag, the content of the referenced object is not written again.
+     */
+    @Override
+    protected void formatReference(int id, PrintWriter printWriter) {
+    }
+
+    /**
+     * 被共享的集合与对象一样，第一次输出时起始标签中已经写入了 id 属性，之后的起始标签中写入的是 idref 属性，不再输出集合中的元素。
+     * <p>
+     * A shared collection is handled like an object: the first start tag already carries the id attribute, later start tags carry the idref attribute and the elements are not written again.
+     */
+    @Override
+    void formatSharedListToStream(Collection<?> data, String name, ReferenceTable references, PrintWriter printWriter) {
+        if (references.markWritten(data)) {
+            this.formatElementsToStream(data, name, printWriter);
+        }
+    }
+
     /**
      * 格式化数据 此函数一般是将所有的字段按照类型分类处理并进行结果的追加。
      *
@@ -114,12 +210,16 @@ public class XmlFormatter extends JsonFormatter {
      */
     @Override
     protected String formatValue(String name, Object value) {
+        value = this.wrapLazy(value);
         if (value == null) {
             return "null";
         }
-        if (value instanceof Number || value instanceof String) {
+        if (value instanceof Number || value instanceof Boolean) {
             return value.toString();
         }
+        if (value instanceof String || value instanceof Character) {
+            return Escaper.XML.escape(value.toString());
+        }
         if (value instanceof Map) {
             return this.formatMap(ASClass.transform(value));
         }
@@ -128,4 +228,77 @@ public class XmlFormatter extends JsonFormatter {
         }
         return this.format(value, false);
     }
+
+    /**
+     * 格式化数据 此函数会将字段的值直接写入到数据流中，Map 与 Collection 类型的值会递归的写入同一个数据流。
+     * <p>
+     * Format data. This function writes the value of a field straight into the stream, Map and Collection values are written recursively into the same stream.
+     *
+     * @param name        需要被进行格式化的字段的名字。
+     *                    <p>
+     *                    The name of the field that needs to be formatted.
+     * @param value       格式化操作中要用来进行存储的对象。
+     * @param printWriter 转换结果的数据输出流，转换的结果会存储进这个数据流中！
+     *                    <p>
+     *                    The data output stream of the conversion result will be stored in this data stream!
+     */
+    @Override
+    protected void formatValue(String name, Object value, PrintWriter printWriter) {
+        value = this.wrapLazy(value);
+        if (value instanceof Map) {
+            this.formatMapToStream((Map<?, ?>) value, printWriter);
+        } else if (value instanceof Collection) {
+            this.formatListToStream((Collection<?>) value, name, printWriter);
+        } else if (value instanceof String) {
+            this.formatStringToStream((String) value, printWriter);
+        } else if (value instanceof Number) {
+            NumberWriter.writeNumber(printWriter, (Number) value);
+        } else if (value instanceof Boolean) {
+            printWriter.write((Boolean) value ? "true" : "false");
+        } else if (value instanceof Character) {
+            this.formatStringToStream(value.toString(), printWriter);
+        } else if (value == null) {
+            printWriter.append(this.formatValue(name, null));
+        } else {
+            this.formatToStream(value, false, printWriter);
+        }
+    }
+
+    /**
+     * 将一个字符串类型的值作为 XML 文本转义之后直接写入到数据流中。
+     * <p>
+     * Escape a String value as XML text and write it straight into the stream.
+     *
+     * @param value       需要被写入的字符串
+     * @param printWriter 转换结果的数据输出流
+     */
+    @Override
+    protected void formatStringToStream(String value, PrintWriter printWriter) {
+        Escaper.XML.write(printWriter, value);
+    }
+
+    /**
+     * 所有的记录会作为同一个根节点的子节点写入，这里写入根节点的起始标签。
+     * <p>
+     * All records are written as children of one root node, this writes the start tag of the root.
+     */
+    @Override
+    protected void formatAllStart(String name, PrintWriter printWriter) {
+        printWriter.write(this.formatName_start(name, null));
+    }
+
+    /**
+     * 每一条记录都会作为根节点下的一个子节点写入，记录之间不会添加换行符。
+     * <p>
+     * Every record is written as one child of the root node, no newline is added between records.
+     */
+    @Override
+    protected void formatAllRecord(Object record, PrintWriter printWriter) {
+        this.formatToStream(record, printWriter);
+    }
+
+    @Override
+    protected void formatAllEnd(String name, PrintWriter printWriter) {
+        printWriter.write(this.formatName_End(name, null));
+    }
 }
@@ -1,11 +1,14 @@
 package top.lingyuzhao.varFormatter.core;
 
-import top.lingyuzhao.varFormatter.utils.StrUtils;
+import top.lingyuzhao.varFormatter.utils.Escaper;
+import top.lingyuzhao.varFormatter.utils.NumberWriter;
+import top.lingyuzhao.varFormatter.utils.Utf8Sink;
 
 import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.Objects;
 
 /**
  * yaml 格式化转换器，能够将一个对象进行格式化，生成 yaml 格式的数据！
@@ -16,10 +19,72 @@ import java.util.Objects;
  */
 public class YamlFormatter extends ManualFormatter {
 
+    /**
+     * 每一个类对应的格式化计划，计划中存储的是每一个字段的 `key: ` 字符串。
+     * <p>
+     * The format plan of every class, which stores the `key: ` string of every field.
+     */
+    private final ClassCache<FormatPlan> plans = new ClassCache<>(type -> FormatPlan.of(type, n -> quote(n) + ": ", n -> ""), StructuralCache::getMaxSize);
+
+    /**
+     * YAML 文档的起始标记
+     */
+    private static final Utf8Sink.Token DOCUMENT_START = Utf8Sink.Token.of("---\n");
+
+    /**
+     * 预先生成的缩进字符串的初始数量
+     */
+    private static final int INDENT_LEVELS = 16;
+
+    /**
+     * 默认每一层缩进使用的空格数量
+     */
+    private static final int DEFAULT_INDENT = 2;
+
+    /**
+     * 每一层缩进使用的空格数量，为 0 代表使用制表符。
+     * <p>
+     * The number of spaces per indentation level, 0 means a tab is used.
+     */
+    private int indent = DEFAULT_INDENT;
+
+    /**
+     * 每一层缩进对应的换行与缩进字符串，下标是缩进的层级，不够用的时候会扩容。
+     * <p>
+     * The line break and indentation string of every level, indexed by the level and grown when needed.
+     */
+    private volatile String[] indents = indentTable(DEFAULT_INDENT, INDENT_LEVELS);
+
     protected YamlFormatter() {
         super(VarFormatter.YAML);
     }
 
+    /**
+     * @return 每一层缩进使用的空格数量，为 0 代表使用制表符
+     * <p>
+     * The number of spaces per indentation level, 0 means a tab is used
+     */
+    public int getIndent() {
+        return indent;
+    }
+
+    /**
+     * 设置每一层缩进使用的空格数量，默认是 2，设置为 0 时会使用制表符缩进，这样的结果不能交给 YAML 解析器读取，因为 YAML 规范不允许使用制表符缩进。
+     * <p>
+     * Set the number of spaces per indentation level, 2 by default. Setting it to 0 indents with tabs, and such a result cannot be read back by a YAML parser, since the YAML specification does not allow tab indentation.
+     *
+     * @param indent 每一层缩进使用的空格数量，设置为 0 代表使用制表符
+     *               <p>
+     *               The number of spaces per level, 0 means a tab is used
+     */
+    public void setIndent(int indent) {
+        if (indent < 0) {
+            throw new IllegalArgumentException("indent must not be negative: " + indent);
+        }
+        this.indent = indent;
+        this.indents = indentTable(indent, INDENT_LEVELS);
+    }
+
     /**
      * 格式化数据函数，您可以在这里直接将需要被进行格式化的数据传递进来！
      * <p>
@@ -38,9 +103,12 @@ public class YamlFormatter extends ManualFormatter {
         return super.format(data, getName);
     }
 
+    /**
+     * @return yaml 使用锚点与别名支持引用追踪
+     */
     @Override
-    public String format(Object data, Class<?> dataClassObj, String name) {
-        return super.format(data, dataClassObj, name + ": ");
+    protected boolean isReferenceSupported() {
+        return true;
     }
 
     /**
@@ -58,7 +126,17 @@ public class YamlFormatter extends ManualFormatter {
      */
     @Override
     public void formatToStream(Map<?, ?> data, String name, PrintWriter printWriter) {
-        this.format(data, name, "\n\t", printWriter);
+        if (this.needsReferences()) {
+            final ReferenceTable previous = ReferenceTable.open(this, data);
+            try {
+                this.formatToStream(data, name, printWriter);
+            } finally {
+                ReferenceTable.close(previous);
+            }
+            return;
+        }
+        writeKey(name, printWriter);
+        this.formatMap(data, 1, printWriter);
     }
 
     /**
@@ -76,12 +154,22 @@ public class YamlFormatter extends ManualFormatter {
      */
     @Override
     public void formatToStream(Collection<?> data, String name, PrintWriter printWriter) {
-        this.format(data, name, "\n\t", printWriter);
+        if (this.needsReferences()) {
+            final ReferenceTable previous = ReferenceTable.open(this, data);
+            try {
+                this.formatToStream(data, name, printWriter);
+            } finally {
+                ReferenceTable.close(previous);
+            }
+            return;
+        }
+        writeKey(name, printWriter);
+        this.formatCollection(data, 1, printWriter);
     }
 
 
     public void format(Object data, Class<?> dataClassObj, String name, String rowTab, PrintWriter printWriter) {
-        this.format(StructuralCache.classToMap(dataClassObj, data), name, rowTab, printWriter);
+        this.format(StructuralCache.classToView(dataClassObj, data), name, rowTab, printWriter);
     }
 
     /**
@@ -92,9 +180,9 @@ public class YamlFormatter extends ManualFormatter {
      * @param data          要格式化的 Map 对象
      *                      <p>
      *                      object to format
-     * @param rowTab        制表符前缀
+     * @param rowTab        制表符前缀，其中制表符的数量就是子节点的缩进层级，实际写入的缩进由 {@link #setIndent(int)} 决定
      *                      <p>
-     *                      Tab prefix
+     *                      Tab prefix, the number of tabs in it is the indentation level of the children, the indentation actually written is decided by {@link #setIndent(int)}
      * @param name          在格式化操作中 需要做为结果的名称，不一定会使用，但也说不定会用到！
      *                      <p>
      *                      The name that needs to be used as the result in the formatting operation may not be used, but it may also be used!
@@ -104,23 +192,7 @@ public class YamlFormatter extends ManualFormatter {
      */
     public void format(Map<?, ?> data, String name, String rowTab, PrintWriter stringBuilder) {
         stringBuilder.append(name);
-        data.forEach((k, v) -> {
-            final String subName = k.toString() + ": ";
-            if (v == null) {
-                stringBuilder.append(rowTab).append(subName).append("null");
-            } else if (v instanceof Map) {
-                stringBuilder.append(rowTab);
-                this.format((Map<?, ?>) v, subName, rowTab + '\t', stringBuilder);
-            } else if (v instanceof Collection) {
-                stringBuilder.append(rowTab);
-                this.format((Collection<?>) v, subName, rowTab + '\t', stringBuilder);
-            } else if (v instanceof String || v instanceof Number) {
-                stringBuilder.append(rowTab).append(subName).append(StrUtils.escapeNewline(Objects.toString(v)));
-            } else {
-                stringBuilder.append(rowTab);
-                this.format(v, v.getClass(), subName, rowTab + '\t', stringBuilder);
-            }
-        });
+        this.formatMap(data, levelOf(rowTab), stringBuilder);
     }
 
     /**
@@ -132,34 +204,408 @@ public class YamlFormatter extends ManualFormatter {
      *                    <p>
      *                    object to format
      * @param name        在格式化操作中 需要做为 key 的名称
-     * @param rowTab      制表符前缀
+     * @param rowTab      制表符前缀，其中制表符的数量就是元素的缩进层级，实际写入的缩进由 {@link #setIndent(int)} 决定
      *                    <p>
-     *                    Tab prefix
+     *                    Tab prefix, the number of tabs in it is the indentation level of the elements, the indentation actually written is decided by {@link #setIndent(int)}
      * @param printWriter 转换结果的数据输出流，转换的结果会存储进这个数据流中！
      *                    <p>
      *                    The data output stream of the conversion result will be stored in this data stream!
      */
     public void format(Collection<?> data, String name, String rowTab, PrintWriter printWriter) {
         printWriter.append(name);
-        for (Object v : data) {
-            if (v == null) {
-                continue;
+        this.formatCollection(data, levelOf(rowTab), printWriter);
+    }
+
+    /**
+     * 写入根节点的键以及键值分隔符，锚点与子节点需要写在分隔符之后，名字为 null 时不写入键。
+     *
+     * @param name        根节点的名字
+     * @param printWriter 转换结果的数据输出流
+     */
+    private static void writeKey(String name, PrintWriter printWriter) {
+        if (name != null) {
+            printWriter.append(name).write(": ");
+        }
+    }
+
+    /**
+     * 将 Map 中的所有键值对作为子节点写入，Map 的键需要已经被写入，空的 Map 会被写入为 `{}`。
+     *
+     * @param data        要格式化的 Map 对象
+     * @param level       子节点的缩进层级
+     * @param printWriter 转换结果的数据输出流
+     */
+    private void formatMap(Map<?, ?> data, int level, PrintWriter printWriter) {
+        final int anchor = this.formatAnchor(data instanceof FieldMapView ? ((FieldMapView) data).getData() : data, printWriter);
+        if (anchor < 0) {
+            return;
+        }
+        final boolean anchored = anchor > 0;
+        if (data.isEmpty()) {
+            printWriter.write(anchored ? " {}" : "{}");
+            return;
+        }
+        if (data instanceof FieldMapView) {
+            final FormatterMetrics.Call call = FormatterMetrics.active ? FormatterMetrics.enter() : null;
+            if (call != null) {
+                this.formatFields((FieldMapView) data, level, call, printWriter);
+                call.exit();
+                return;
             }
-            if (v instanceof Map) {
-                printWriter.append(rowTab);
-                this.format((Map<?, ?>) v, "- ", rowTab + '\t', printWriter);
-            } else if (v instanceof Collection) {
-                printWriter.append(rowTab);
-                this.format((Collection<?>) v, "- ", rowTab + '\t', printWriter);
-            } else if (v instanceof String) {
-                printWriter.append(rowTab).append('-').append(' ').append('"').append(Objects.toString(v)).append('"');
-            } else if (v instanceof Number) {
-                printWriter.append(rowTab).append('-').append(' ').append(Objects.toString(v));
-            } else {
-                printWriter.append(rowTab);
-                this.format(v, v.getClass(), "- ", rowTab + '\t', printWriter);
+            if (this.formatPlan((FieldMapView) data, level, printWriter)) {
+                return;
             }
         }
+        this.formatEntries(data, level, printWriter);
     }
 
+    /**
+     * 如果对象被共享，第一次输出时写入锚点，之后只写入别名。
+     *
+     * @param identity    需要被写入的 Map、集合或对象
+     * @param printWriter 转换结果的数据输出流
+     * @return 写入了锚点则返回 1，写入了别名则返回 -1，此时不需要再写入对象的内容，对象没有被共享时返回 0
+     */
+    private int formatAnchor(Object identity, PrintWriter printWriter) {
+        final ReferenceTable references = this.getReferences();
+        final int id = references == null ? 0 : references.idOf(identity);
+        if (id == 0) {
+            return 0;
+        }
+        final boolean first = references.markWritten(identity);
+        printWriter.write(first ? "&id" : "*id");
+        if (id < 100) {
+            printWriter.write(id < 10 ? "00" : "0");
+        }
+        NumberWriter.writeInt(printWriter, id);
+        return first ? 1 : -1;
+    }
+
+    /**
+     * 格式化一个需要记录的对象中的所有字段，被采样的调用中每一个字段都会被计时，并且不会使用计划。
+     *
+     * @param view        要格式化的对象字段视图
+     * @param level       字段的缩进层级
+     * @param call        正在记录的格式化调用
+     * @param printWriter 转换结果的数据输出流
+     */
+    private void formatFields(FieldMapView view, int level, FormatterMetrics.Call call, PrintWriter printWriter) {
+        if (!call.isSampled()) {
+            if (!this.formatPlan(view, level, printWriter)) {
+                this.formatEntries(view, level, printWriter);
+            }
+            return;
+        }
+        final String indent = this.indentOf(level);
+        final Object data = view.getData();
+        for (FieldAccessor accessor : view.getAccessors()) {
+            final long start = call.fieldStart(printWriter);
+            printWriter.write(indent);
+            this.formatString(accessor.getName(), printWriter);
+            printWriter.write(": ");
+            this.formatValue(accessor.get(data), level, printWriter);
+            call.fieldEnd(view.getType(), accessor.getName(), start, printWriter);
+        }
+    }
+
+    /**
+     * 逐个写入 Map 中的键值对。
+     *
+     * @param data        要格式化的 Map 对象
+     * @param level       键值对的缩进层级
+     * @param printWriter 转换结果的数据输出流
+     */
+    private void formatEntries(Map<?, ?> data, int level, PrintWriter printWriter) {
+        final String indent = this.indentOf(level);
+        data.forEach((k, v) -> {
+            printWriter.write(indent);
+            this.formatString(k.toString(), printWriter);
+            printWriter.write(": ");
+            this.formatValue(v, level, printWriter);
+        });
+    }
+
+    /**
+     * 如果启用了计划并且对象所属的类支持计划，则使用计划格式化对象。
+     *
+     * @param view        要格式化的对象字段视图
+     * @param level       字段的缩进层级
+     * @param printWriter 转换结果的数据输出流
+     * @return 是否使用计划完成了格式化
+     */
+    private boolean formatPlan(FieldMapView view, int level, PrintWriter printWriter) {
+        if (!this.isCompilePlan() || view.getType() == null) {
+            return false;
+        }
+        final FormatPlan plan = plans.get(view.getType());
+        if (plan == FormatPlan.UNSUPPORTED) {
+            return false;
+        }
+        this.formatPlan(plan, view.getData(), level, printWriter);
+        return true;
+    }
+
+    /**
+     * 使用格式化计划格式化一个对象，字段名相关的字符串直接使用计划中预先生成的数据，基本数据类型的字段不会被装箱。
+     *
+     * @param plan          对象所属类的格式化计划
+     * @param data          要格式化的对象
+     * @param level         字段的缩进层级
+     * @param stringBuilder 转换结果的数据输出流
+     */
+    private void formatPlan(FormatPlan plan, Object data, int level, PrintWriter stringBuilder) {
+        final String indent = this.indentOf(level);
+        final FieldAccessor[] accessors = plan.getAccessors();
+        for (int i = 0; i < accessors.length; i++) {
+            final FieldAccessor accessor = accessors[i];
+            stringBuilder.write(indent);
+            Utf8Sink.write(stringBuilder, plan.getStart(i));
+            switch (accessor.getKind()) {
+                case FieldAccessor.KIND_INT:
+                    NumberWriter.writeInt(stringBuilder, accessor.getInt(data));
+                    break;
+                case FieldAccessor.KIND_LONG:
+                    NumberWriter.writeLong(stringBuilder, accessor.getLong(data));
+                    break;
+                case FieldAccessor.KIND_DOUBLE:
+                    writeDouble(stringBuilder, accessor.getDouble(data));
+                    break;
+                case FieldAccessor.KIND_FLOAT:
+                    writeFloat(stringBuilder, accessor.getFloat(data));
+                    break;
+                default:
+                    this.formatValue(accessor.get(data), level, stringBuilder);
+            }
+        }
+    }
+
+    /**
+     * 将集合中的所有元素作为子节点写入，集合的键需要已经被写入，空的集合会被写入为 `[]`，被共享的集合与 Map 一样会写入锚点或别名。
+     *
+     * @param data        要格式化的集合
+     * @param level       元素的缩进层级
+     * @param printWriter 转换结果的数据输出流
+     */
+    private void formatCollection(Collection<?> data, int level, PrintWriter printWriter) {
+        final int anchor = this.formatAnchor(data, printWriter);
+        if (anchor < 0) {
+            return;
+        }
+        if (this.isParallel(data)) {
+            // 大集合 切分之后并行格式化 再按照顺序拼接
+            ParallelChunks.format(data, this.getParallelThreshold(), this.getForkJoinPool(),
+                    (v, first, chunkWriter) -> this.formatListItem(v, level, chunkWriter), printWriter);
+            return;
+        }
+        // 只能遍历一次的集合没有办法提前获取数量 所以通过迭代器判断是否为空
+        final Iterator<?> iterator = data.iterator();
+        if (!iterator.hasNext()) {
+            printWriter.write(anchor > 0 ? " []" : "[]");
+            return;
+        }
+        do {
+            this.formatListItem(iterator.next(), level, printWriter);
+        } while (iterator.hasNext());
+    }
+
+    /**
+     * 格式化 List 中的一个元素。
+     *
+     * @param v           元素的值
+     * @param level       元素的缩进层级
+     * @param printWriter 转换结果的数据输出流
+     */
+    private void formatListItem(Object v, int level, PrintWriter printWriter) {
+        printWriter.write(this.indentOf(level));
+        printWriter.write("- ");
+        this.formatValue(v, level, printWriter);
+    }
+
+    /**
+     * 写入键或 `- ` 之后的值，Map 集合与对象会作为下一层的子节点写入。
+     *
+     * @param v           需要被写入的值
+     * @param level       值所属的键或元素的缩进层级
+     * @param printWriter 转换结果的数据输出流
+     */
+    private void formatValue(Object v, int level, PrintWriter printWriter) {
+        v = this.wrapLazy(v);
+        if (v == null) {
+            printWriter.write("null");
+        } else if (v instanceof Map) {
+            this.formatMap((Map<?, ?>) v, level + 1, printWriter);
+        } else if (v instanceof Collection) {
+            this.formatCollection((Collection<?>) v, level + 1, printWriter);
+        } else if (v instanceof String || v instanceof Character) {
+            this.formatString(v.toString(), printWriter);
+        } else if (v instanceof Double) {
+            writeDouble(printWriter, (Double) v);
+        } else if (v instanceof Float) {
+            writeFloat(printWriter, (Float) v);
+        } else if (v instanceof Number) {
+            NumberWriter.writeNumber(printWriter, (Number) v);
+        } else if (v instanceof Boolean) {
+            printWriter.write((Boolean) v ? "true" : "false");
+        } else {
+            this.formatMap(StructuralCache.classToView(v.getClass(), v), level + 1, printWriter);
+        }
+    }
+
+    /**
+     * 写入一个 double 标量，NaN 与无穷大会写入为 YAML 中对应的 `.nan`、`.inf` 与 `-.inf`。
+     *
+     * @param value       需要被写入的数值
+     * @param printWriter 转换结果的数据输出流
+     */
+    private static void writeDouble(PrintWriter printWriter, double value) {
+        if (Double.isNaN(value)) {
+            printWriter.write(".nan");
+        } else if (Double.isInfinite(value)) {
+            printWriter.write(value > 0 ? ".inf" : "-.inf");
+        } else {
+            NumberWriter.writeDouble(printWriter, value);
+        }
+    }
+
+    /**
+     * 写入一个 float 标量，NaN 与无穷大的写法与 {@link #writeDouble(PrintWriter, double)} 相同。
+     *
+     * @param value       需要被写入的数值
+     * @param printWriter 转换结果的数据输出流
+     */
+    private static void writeFloat(PrintWriter printWriter, float value) {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            writeDouble(printWriter, value);
+        } else {
+            NumberWriter.writeFloat(printWriter, value);
+        }
+    }
+
+    /**
+     * 写入一个字符串标量，可以作为普通标量被原样读取的字符串会原样写入，否则会写入为双引号标量。
+     * <p>
+     * Write a string scalar. It is written as is when it reads back unchanged as a plain scalar, otherwise it is written as a double quoted scalar.
+     *
+     * @param value       需要被写入的字符串
+     * @param printWriter 转换结果的数据输出流
+     */
+    private void formatString(String value, PrintWriter printWriter) {
+        if (isPlain(value)) {
+            printWriter.write(value);
+            return;
+        }
+        printWriter.write('"');
+        Escaper.YAML.write(printWriter, value);
+        printWriter.write('"');
+    }
+
+    /**
+     * @return 指定缩进层级的换行与缩进字符串
+     */
+    private String indentOf(int level) {
+        String[] indents = this.indents;
+        if (level >= indents.length) {
+            indents = indentTable(this.indent, Math.max(level + 1, indents.length << 1));
+            this.indents = indents;
+        }
+        return indents[level];
+    }
+
+    /**
+     * 生成每一层缩进对应的换行与缩进字符串。
+     *
+     * @param indent 每一层缩进使用的空格数量，为 0 代表使用制表符
+     * @param size   需要生成的层级数量
+     */
+    private static String[] indentTable(int indent, int size) {
+        final String[] table = new String[size];
+        final char[] chars = new char[1 + (indent == 0 ? 1 : indent) * (size - 1)];
+        chars[0] = '\n';
+        Arrays.fill(chars, 1, chars.length, indent == 0 ? '\t' : ' ');
+        for (int i = 0; i < size; i++) {
+            table[i] = new String(chars, 0, 1 + (indent == 0 ? 1 : indent) * i);
+        }
+        return table;
+    }
+
+    /**
+     * @return 制表符前缀对应的缩进层级
+     */
+    private static int levelOf(String rowTab) {
+        int level = 0;
+        for (int i = 0; i < rowTab.length(); i++) {
+            if (rowTab.charAt(i) == '\t') {
+                level++;
+            }
+        }
+        return level;
+    }
+
+    /**
+     * 生成键在格式化结果中的写法，需要时会被写入为双引号标量。
+     */
+    private static String quote(String value) {
+        return isPlain(value) ? value : '"' + Escaper.YAML.escape(value) + '"';
+    }
+
+    /**
+     * 判断一个字符串是否可以作为普通标量写入，普通标量不能为空，不能以指示符或空格开始或以空格结束，不能包含 `: ` 与 ` #`，并且不能被读取为 null、布尔值或数值。
+     * <p>
+     * Check whether a string can be written as a plain scalar. A plain scalar must not be empty, start with an indicator or a space, end with a space, contain `: ` or ` #`, or read back as null, a boolean or a number.
+     *
+     * @param value 需要被检查的字符串
+     * @return 字符串是否可以作为普通标量写入
+     */
+    private static boolean isPlain(String value) {
+        final int length = value.length();
+        if (length == 0 || Escaper.YAML.needsEscape(value)) {
+            return false;
+        }
+        final char first = value.charAt(0);
+        if ("-?:,[]{}#&*!|>'%@` ".indexOf(first) >= 0 || value.charAt(length - 1) == ' ' || value.charAt(length - 1) == ':') {
+            return false;
+        }
+        if ((first >= '0' && first <= '9') || first == '+' || first == '.') {
+            // 可能会被读取为数值
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            final char c = value.charAt(i);
+            if ((c == ' ' && value.charAt(i - 1) == ':') || (c == '#' && value.charAt(i - 1) == ' ')) {
+                return false;
+            }
+        }
+        return !isReserved(value);
+    }
+
+    /**
+     * @return 字符串是否会被 YAML 读取为 null 或布尔值
+     */
+    private static boolean isReserved(String value) {
+        switch (value.length()) {
+            case 1:
+                return "~yYnN".indexOf(value.charAt(0)) >= 0;
+            case 2:
+                return value.equalsIgnoreCase("no") || value.equalsIgnoreCase("on");
+            case 3:
+                return value.equalsIgnoreCase("yes") || value.equalsIgnoreCase("off");
+            case 4:
+                return value.equalsIgnoreCase("null") || value.equalsIgnoreCase("true");
+            case 5:
+                return value.equalsIgnoreCase("false");
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 每一条记录都会作为一个以 `---` 开始的 YAML 文档写入。
+     * <p>
+     * Every record is written as a YAML document starting with `---`.
+     */
+    @Override
+    protected void formatAllRecord(Object record, PrintWriter printWriter) {
+        Utf8Sink.write(printWriter, DOCUMENT_START);
+        super.formatAllRecord(record, printWriter);
+    }
 }
@@ -0,0 +1,240 @@
+package top.lingyuzhao.varFormatter.utils;
+
+import java.io.PrintWriter;
+
+/**
+ * 字符串转义器，每一种数据格式都有一个对应的转义表，写入字符串时会先扫描需要转义的字符，如果不存在则直接写入原字符串，否则会将原字符串按照片段写入，转义序列会直接写入数据流，不会产生临时字符串。
+ * <p>
+ * String escaper. Every data format has its own escape table. Writing a string first scans for characters that need escaping; if there are none the original string is written unchanged, otherwise the string is written span by span and the escape sequences go straight into the stream without temporary strings.
+ *
+ * @author zhao
+ */
+public final class Escaper {
+
+    /**
+     * JSON 字符串的转义器，会转义双引号、反斜杠与所有的控制字符。
+     * <p>
+     * Escaper for JSON strings, escapes double quotes, backslashes and all control characters.
+     */
+    public static final Escaper JSON = new Escaper(jsonTable());
+
+    /**
+     * XML 文本与属性值的转义器，会将 &amp; &lt; &gt; &quot; &apos; 转换为实体，XML 中不允许出现的控制字符会被替换为 U+FFFD。
+     * <p>
+     * Escaper for XML text and attribute values, turns &amp; &lt; &gt; &quot; &apos; into entities. Control characters that are not allowed in XML are replaced with U+FFFD.
+     */
+    public static final Escaper XML = new Escaper(xmlTable());
+
+    /**
+     * XML 属性值的转义器，除了文本中需要转义的字符之外，制表符与换行也会被转换为字符引用，避免被解析器替换为空格。
+     * <p>
+     * Escaper for XML attribute values. Besides the characters escaped in text, tabs and line breaks become character references so parsers do not normalise them to spaces.
+     */
+    public static final Escaper XML_ATTRIBUTE = new Escaper(xmlAttributeTable());
+
+    /**
+     * YAML 双引号标量的转义器。
+     * <p>
+     * Escaper for YAML double quoted scalars.
+     */
+    public static final Escaper YAML = new Escaper(yamlTable());
+
+    /**
+     * Python 单引号字符串字面量的转义器。
+     * <p>
+     * Escaper for Python single quoted string literals.
+     */
+    public static final Escaper PYTHON = new Escaper(pythonTable());
+
+    /**
+     * Mermaid 节点中双引号标签的转义器，双引号会被转换为 `#quot;`，换行会被转换为 `<br>`，其它控制字符会被替换为空格。
+     * <p>
+     * Escaper for double quoted Mermaid node labels. Double quotes become `#quot;`, line breaks become `<br>` and other control characters are replaced with a space.
+     */
+    public static final Escaper MERMAID = new Escaper(mermaidTable());
+
+    /**
+     * ASCII 字符对应的转义序列，为 null 代表此字符不需要转义，非 ASCII 字符不会被转义。
+     */
+    private final Utf8Sink.Token[] table;
+
+    private Escaper(String[] table) {
+        this.table = new Utf8Sink.Token[table.length];
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != null) {
+                this.table[i] = Utf8Sink.Token.of(table[i]);
+            }
+        }
+    }
+
+    private static String[] jsonTable() {
+        final String[] table = new String[128];
+        for (int c = 0; c < 0x20; c++) {
+            table[c] = String.format("\\u%04x", c);
+        }
+        table['\b'] = "\\b";
+        table['\f'] = "\\f";
+        table['\n'] = "\\n";
+        table['\r'] = "\\r";
+        table['\t'] = "\\t";
+        table['"'] = "\\\"";
+        table['\\'] = "\\\\";
+        return table;
+    }
+
+    private static String[] xmlTable() {
+        final String[] table = new String[128];
+        for (int c = 0; c < 0x20; c++) {
+            table[c] = "\uFFFD";
+        }
+        table['\t'] = null;
+        table['\n'] = null;
+        table['\r'] = null;
+        table['&'] = "&amp;";
+        table['<'] = "&lt;";
+        table['>'] = "&gt;";
+        table['"'] = "&quot;";
+        table['\''] = "&apos;";
+        return table;
+    }
+
+    private static String[] xmlAttributeTable() {
+        final String[] table = xmlTable();
+        table['\t'] = "&#9;";
+        table['\n'] = "&#10;";
+        table['\r'] = "&#13;";
+        return table;
+    }
+
+    private static String[] yamlTable() {
+        final String[] table = new String[128];
+        for (int c = 0; c < 0x20; c++) {
+            table[c] = String.format("\\x%02x", c);
+        }
+        table[0] = "\\0";
+        table['\n'] = "\\n";
+        table['\r'] = "\\r";
+        table['\t'] = "\\t";
+        table['"'] = "\\\"";
+        table['\\'] = "\\\\";
+        table[0x7F] = "\\x7f";
+        return table;
+    }
+
+    private static String[] mermaidTable() {
+        final String[] table = new String[128];
+        for (int c = 0; c < 0x20; c++) {
+            table[c] = " ";
+        }
+        table['\n'] = "<br>";
+        table['\r'] = "";
+        table['"'] = "#quot;";
+        return table;
+    }
+
+    private static String[] pythonTable() {
+        final String[] table = new String[128];
+        for (int c = 0; c < 0x20; c++) {
+            table[c] = String.format("\\x%02x", c);
+        }
+        table['\n'] = "\\n";
+        table['\r'] = "\\r";
+        table['\t'] = "\\t";
+        table['\''] = "\\'";
+        table['\\'] = "\\\\";
+        table[0x7F] = "\\x7f";
+        return table;
+    }
+
+    /**
+     * 查找字符串中第一个需要被转义的字符。
+     * <p>
+     * Find the first character in the string that needs escaping.
+     *
+     * @param data 需要被检查的字符串
+     * @param from 开始检查的位置
+     * @return 第一个需要被转义的字符的索引，如果不存在则返回 -1
+     */
+    public int indexOfEscape(CharSequence data, int from) {
+        final Utf8Sink.Token[] table = this.table;
+        final int length = data.length();
+        for (int i = from; i < length; i++) {
+            final char c = data.charAt(i);
+            if (c < 128 && table[c] != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param data 需要被检查的字符串
+     * @return 字符串中是否包含需要被转义的字符
+     * <p>
+     * Whether the string contains characters that need escaping
+     */
+    public boolean needsEscape(CharSequence data) {
+        return this.indexOfEscape(data, 0) >= 0;
+    }
+
+    /**
+     * 将字符串转义之后写入到数据流中，如果字符串不需要转义则会直接写入原字符串，如果数据流是 UTF-8 字节输出流，转义序列会直接以编码好的字节写入。
+     * <p>
+     * Write the escaped string into the stream. A string that needs no escaping is written unchanged. If the stream is a UTF-8 byte sink the escape sequences are written as pre-encoded bytes.
+     *
+     * @param printWriter 需要被写入的数据流
+     * @param data        需要被转义的字符串
+     */
+    public void write(PrintWriter printWriter, String data) {
+        int i = this.indexOfEscape(data, 0);
+        if (i < 0) {
+            printWriter.write(data);
+            return;
+        }
+        final Utf8Sink.Token[] table = this.table;
+        final int length = data.length();
+        int start = 0;
+        for (; i < length; i++) {
+            final char c = data.charAt(i);
+            final Utf8Sink.Token token;
+            if (c < 128 && (token = table[c]) != null) {
+                if (i > start) {
+                    printWriter.write(data, start, i - start);
+                }
+                Utf8Sink.write(printWriter, token);
+                start = i + 1;
+            }
+        }
+        if (start < length) {
+            printWriter.write(data, start, length - start);
+        }
+    }
+
+    /**
+     * 转义一个字符串，如果字符串不需要转义则直接返回原字符串对象。
+     * <p>
+     * Escape a string. A string that needs no escaping is returned as the same object.
+     *
+     * @param data 需要被转义的字符串
+     * @return 转义之后的字符串
+     */
+    public String escape(String data) {
+        int i = this.indexOfEscape(data, 0);
+        if (i < 0) {
+            return data;
+        }
+        final Utf8Sink.Token[] table = this.table;
+        final int length = data.length();
+        final StringBuilder stringBuilder = new StringBuilder(length + 16).append(data, 0, i);
+        for (; i < length; i++) {
+            final char c = data.charAt(i);
+            final Utf8Sink.Token token;
+            if (c < 128 && (token = table[c]) != null) {
+                stringBuilder.append(token.getText());
+            } else {
+                stringBuilder.append(c);
+            }
+        }
+        return stringBuilder.toString();
+    }
+}
@@ -0,0 +1,197 @@
+package top.lingyuzhao.varFormatter.utils;
+
+import java.io.PrintWriter;
+
+/**
+ * 数值输出工具，此工具会将基本数据类型的数值直接转换为字符并写入到数据流中，不会进行装箱也不会创建临时的字符串。
+ * <p>
+ * Number writer, which renders primitive values straight into the stream as characters, without boxing and without temporary strings.
+ * <p>
+ * 数值的字符会先写入到当前线程的缓冲区中，然后一次性的写入数据流，如果数据流是 UTF-8 字节输出流，则会走 ASCII 快速路径。double 与 float 在 [1e-3, 1e7) 范围内会使用最短的可以还原数值的小数形式，输出结果与 {@link Double#toString(double)} 以及 {@link Float#toString(float)} 的格式一致，其它范围的数值会回退到这两个函数。
+ * <p>
+ * The characters are first rendered into a per-thread buffer and then written into the stream in one call, which takes the ASCII fast path if the stream is a UTF-8 byte sink. Doubles and floats in [1e-3, 1e7) are written in the shortest decimal form that round-trips, in the same layout as {@link Double#toString(double)} and {@link Float#toString(float)}. Values outside that range fall back to those two methods.
+ *
+ * @author zhao
+ */
+public final class NumberWriter {
+
+    /**
+     * 10 的幂，所有的数值都可以被 double 精确表示。
+     */
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+            1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17
+    };
+
+    /**
+     * double 可以精确表示的最大整数。
+     */
+    private static final long MAX_EXACT = 1L << 53;
+
+    /**
+     * 当前线程的字符缓冲区，能够容纳任意的 long 与小数形式的 double。
+     */
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[32]);
+
+    private NumberWriter() {
+    }
+
+    /**
+     * 将一个 int 数值写入到数据流中。
+     *
+     * @param printWriter 需要被写入的数据流
+     * @param value       需要被写入的数值
+     */
+    public static void writeInt(PrintWriter printWriter, int value) {
+        writeLong(printWriter, value);
+    }
+
+    /**
+     * 将一个 long 数值写入到数据流中。
+     *
+     * @param printWriter 需要被写入的数据流
+     * @param value       需要被写入的数值
+     */
+    public static void writeLong(PrintWriter printWriter, long value) {
+        if (value >= 0 && value < 10) {
+            printWriter.write('0' + (int) value);
+            return;
+        }
+        if (value == Long.MIN_VALUE) {
+            printWriter.write("-9223372036854775808");
+            return;
+        }
+        final char[] buffer = BUFFER.get();
+        final int start = fillLong(buffer, buffer.length, value);
+        printWriter.write(buffer, start, buffer.length - start);
+    }
+
+    /**
+     * 将一个 double 数值写入到数据流中，格式与 {@link Double#toString(double)} 一致。
+     *
+     * @param printWriter 需要被写入的数据流
+     * @param value       需要被写入的数值
+     */
+    public static void writeDouble(PrintWriter printWriter, double value) {
+        if (value == 0) {
+            printWriter.write(Double.doubleToRawLongBits(value) < 0 ? "-0.0" : "0.0");
+            return;
+        }
+        final double abs = Math.abs(value);
+        if (abs >= 1e-3 && abs < 1e7) {
+            for (int k = 0; k < POW10.length; k++) {
+                final double scaled = abs * POW10[k];
+                if (scaled >= MAX_EXACT) {
+                    break;
+                }
+                final long m = Math.round(scaled);
+                if (m / POW10[k] == abs) {
+                    // m 与 10^k 都是精确的 除法的结果是最接近 m/10^k 的 double 因此解析这个小数会得到原本的数值
+                    writeDecimal(printWriter, value < 0, m, k);
+                    return;
+                }
+            }
+        }
+        printWriter.write(Double.toString(value));
+    }
+
+    /**
+     * 将一个 float 数值写入到数据流中，格式与 {@link Float#toString(float)} 一致，[1e-3, 1e7) 范围内会使用最短的可以还原为此 float 的小数形式，其它范围的数值会回退到 {@link Float#toString(float)}。
+     *
+     * @param printWriter 需要被写入的数据流
+     * @param value       需要被写入的数值
+     */
+    public static void writeFloat(PrintWriter printWriter, float value) {
+        if (value == 0) {
+            printWriter.write(Float.floatToRawIntBits(value) < 0 ? "-0.0" : "0.0");
+            return;
+        }
+        final float abs = Math.abs(value);
+        if (abs >= 1e-3f && abs < 1e7f) {
+            // float 转换为 double 是精确的 因此与 writeDouble 使用相同的搜索 只是比较时还原为 float
+            final double exact = abs;
+            for (int k = 0; k < POW10.length; k++) {
+                final double scaled = exact * POW10[k];
+                if (scaled >= MAX_EXACT) {
+                    break;
+                }
+                // float 的小数部分位数很少 scaled 可能恰好在两个整数中间 此时与 Float.toString 一样取偶数
+                final long m = (long) Math.rint(scaled);
+                if ((float) (m / POW10[k]) == abs) {
+                    writeDecimal(printWriter, value < 0, m, k);
+                    return;
+                }
+            }
+        }
+        printWriter.write(Float.toString(value));
+    }
+
+    /**
+     * 将一个数值对象写入到数据流中，基本数据类型的包装类会使用对应的写入函数，其它类型的数值会使用 toString。
+     *
+     * @param printWriter 需要被写入的数据流
+     * @param value       需要被写入的数值
+     */
+    public static void writeNumber(PrintWriter printWriter, Number value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writeInt(printWriter, value.intValue());
+        } else if (value instanceof Long) {
+            writeLong(printWriter, value.longValue());
+        } else if (value instanceof Double) {
+            writeDouble(printWriter, value.doubleValue());
+        } else if (value instanceof Float) {
+            writeFloat(printWriter, value.floatValue());
+        } else {
+            printWriter.write(value.toString());
+        }
+    }
+
+    /**
+     * 将 m / 10^k 以小数的形式写入到数据流中，小数点后至少会有一位数字。
+     */
+    private static void writeDecimal(PrintWriter printWriter, boolean negative, long m, int k) {
+        final char[] buffer = BUFFER.get();
+        int position = buffer.length;
+        if (k == 0) {
+            buffer[--position] = '0';
+            buffer[--position] = '.';
+            position = fillLong(buffer, position, m);
+        } else {
+            // 小数部分 不足 k 位的部分使用 0 补齐
+            for (int i = 0; i < k; i++) {
+                buffer[--position] = (char) ('0' + m % 10);
+                m /= 10;
+            }
+            buffer[--position] = '.';
+            position = fillLong(buffer, position, m);
+        }
+        if (negative) {
+            buffer[--position] = '-';
+        }
+        printWriter.write(buffer, position, buffer.length - position);
+    }
+
+    /**
+     * 将一个 long 数值的字符从后向前写入到缓冲区中。
+     *
+     * @param buffer 缓冲区
+     * @param end    写入的结束位置
+     * @param value  需要被写入的数值，不能是 Long.MIN_VALUE
+     * @return 写入的起始位置
+     */
+    private static int fillLong(char[] buffer, int end, long value) {
+        final boolean negative = value < 0;
+        if (negative) {
+            value = -value;
+        }
+        int position = end;
+        do {
+            buffer[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        if (negative) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+}
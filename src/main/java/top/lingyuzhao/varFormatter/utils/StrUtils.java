@@ -6,15 +6,30 @@ package top.lingyuzhao.varFormatter.utils;
 public final class StrUtils {
 
     /**
-     * 将一个字符串中的一些转义字符，变为普通字符串，例如换行符转换为\\n形式，并返回结果
+     * 将一个字符串中的一些转义字符，变为普通字符串，例如换行符转换为\\n形式，并返回结果，如果字符串中没有需要转换的字符，则会直接返回原字符串。
      *
      * @param data 被转义之后的字符串
      * @return 转换后的字符串
+     * @deprecated 此函数只处理 \\n \\r \\t 三种字符，请使用与数据格式对应的 {@link Escaper}。
+     * <p>
+     * This function only handles \\n \\r \\t, use the {@link Escaper} of the target data format instead.
      */
+    @Deprecated
     public static String escapeNewline(String data) {
-        StringBuilder sb = new StringBuilder(data);
-        sb.setLength(0); // 清空StringBuilder内容，以便复用
-        for (int i = 0; i < data.length(); i++) {
+        final int length = data.length();
+        int i = 0;
+        while (i < length) {
+            final char c = data.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\t') {
+                break;
+            }
+            i++;
+        }
+        if (i == length) {
+            return data;
+        }
+        final StringBuilder sb = new StringBuilder(length + 8).append(data, 0, i);
+        for (; i < length; i++) {
             char c = data.charAt(i);
             switch (c) {
                 case '\n':
@@ -0,0 +1,100 @@
+package top.lingyuzhao.varFormatter.utils;
+
+import java.io.Writer;
+
+/**
+ * 基于 StringBuilder 的字符输出流，与 StringWriter 不同的是此输出流不会进行同步，并且可以通过 {@link #reset()} 清空之后重复使用，已经扩容的缓冲区会被保留。
+ * <p>
+ * Character stream backed by a StringBuilder. Unlike StringWriter it does not synchronize, and it can be cleared with {@link #reset()} and reused while keeping the grown buffer.
+ *
+ * @author zhao
+ */
+public final class StringBuilderWriter extends Writer {
+
+    private final StringBuilder builder;
+
+    /**
+     * 创建一个字符输出流。
+     *
+     * @param capacity 缓冲区的初始容量
+     */
+    public StringBuilderWriter(int capacity) {
+        this.builder = new StringBuilder(capacity);
+    }
+
+    /**
+     * 清空已经写入的数据，缓冲区的容量会被保留。
+     */
+    public void reset() {
+        builder.setLength(0);
+    }
+
+    /**
+     * @return 当前缓冲区的容量
+     * <p>
+     * The capacity of the current buffer
+     */
+    public int capacity() {
+        return builder.capacity();
+    }
+
+    /**
+     * @return 已经写入的字符数量
+     * <p>
+     * The number of characters written
+     */
+    public int length() {
+        return builder.length();
+    }
+
+    @Override
+    public void write(int c) {
+        builder.append((char) c);
+    }
+
+    @Override
+    public void write(char[] buf, int off, int len) {
+        builder.append(buf, off, len);
+    }
+
+    @Override
+    public void write(String str) {
+        builder.append(str);
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        builder.append(str, off, off + len);
+    }
+
+    @Override
+    public Writer append(CharSequence csq) {
+        builder.append(csq);
+        return this;
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) {
+        builder.append(csq, start, end);
+        return this;
+    }
+
+    @Override
+    public Writer append(char c) {
+        builder.append(c);
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public String toString() {
+        return builder.toString();
+    }
+}
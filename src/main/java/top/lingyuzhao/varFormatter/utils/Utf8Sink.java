@@ -0,0 +1,577 @@
+package top.lingyuzhao.varFormatter.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UTF-8 字节数据输出流，此输出流会将格式化器写入的字符直接编码为 UTF-8 字节并写入到目标中，目标可以是 OutputStream ByteBuffer 或者 WritableByteChannel。
+ * <p>
+ * UTF-8 byte output sink. Characters written by the formatters are encoded straight into UTF-8 bytes and written into the target, which can be an OutputStream, a ByteBuffer or a WritableByteChannel.
+ * <p>
+ * 此输出流针对 ASCII 字符有单独的快速路径，并且不会像 PrintWriter 那样在每一次写入时加锁，因此它不是线程安全的，不能被多个线程同时使用。
+ * <p>
+ * The sink has a dedicated fast path for ASCII characters and does not lock on every write like PrintWriter does, so it is not thread-safe and must not be shared between threads.
+ *
+ * @author zhao
+ */
+public final class Utf8Sink extends PrintWriter {
+
+    /**
+     * 默认的字节缓冲区大小
+     * <p>
+     * Default byte buffer size
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * 写入文件时批量写入的大小会对齐到此值的整数倍，与常见的文件系统页大小一致。
+     * <p>
+     * Batch sizes for file writes are rounded up to a multiple of this value, which matches the common file system page size.
+     */
+    public static final int FILE_ALIGNMENT = 4096;
+
+    /**
+     * 当前的系统是否允许截断仍然被映射的文件，Windows 中文件的任何一部分被映射时截断都会失败。
+     */
+    private static final boolean MAPPED_TRUNCATE = !System.getProperty("os.name", "").startsWith("Windows");
+
+    private final Encoder encoder;
+
+    private Utf8Sink(Encoder encoder) {
+        super(encoder, false);
+        this.encoder = encoder;
+    }
+
+    /**
+     * 创建一个写入到 OutputStream 中的输出流，此输出流在关闭的时候会将 OutputStream 一起关闭。
+     *
+     * @param outputStream 需要写入的目标
+     * @return 输出流对象
+     */
+    public static Utf8Sink of(OutputStream outputStream) {
+        return new Utf8Sink(new Encoder(DEFAULT_BUFFER_SIZE) {
+            @Override
+            void drain(byte[] bytes, int off, int len) throws IOException {
+                outputStream.write(bytes, off, len);
+            }
+
+            @Override
+            void flushTarget() throws IOException {
+                outputStream.flush();
+            }
+
+            @Override
+            void closeTarget() throws IOException {
+                outputStream.close();
+            }
+        });
+    }
+
+    /**
+     * 创建一个写入到 ByteBuffer 中的输出流，支持堆内与直接内存的 ByteBuffer，如果 ByteBuffer 的剩余空间不足会抛出 BufferOverflowException。
+     *
+     * @param byteBuffer 需要写入的目标
+     * @return 输出流对象
+     */
+    public static Utf8Sink of(ByteBuffer byteBuffer) {
+        return new Utf8Sink(new Encoder(DEFAULT_BUFFER_SIZE) {
+            @Override
+            void drain(byte[] bytes, int off, int len) {
+                byteBuffer.put(bytes, off, len);
+            }
+        });
+    }
+
+    /**
+     * 创建一个写入到 WritableByteChannel 中的输出流，此输出流在关闭的时候会将 WritableByteChannel 一起关闭。
+     *
+     * @param channel 需要写入的目标
+     * @return 输出流对象
+     */
+    public static Utf8Sink of(WritableByteChannel channel) {
+        return new Utf8Sink(new Encoder(DEFAULT_BUFFER_SIZE) {
+            @Override
+            void drain(byte[] bytes, int off, int len) throws IOException {
+                final ByteBuffer wrap = ByteBuffer.wrap(bytes, off, len);
+                while (wrap.hasRemaining()) {
+                    channel.write(wrap);
+                }
+            }
+
+            @Override
+            void closeTarget() throws IOException {
+                channel.close();
+            }
+        });
+    }
+
+    /**
+     * 创建一个批量写入到 FileChannel 中的输出流，字节数据会先在对齐到 {@link #FILE_ALIGNMENT} 的缓冲区中累积，缓冲区满了之后通过直接内存一次性写入，此输出流在关闭的时候会将 FileChannel 一起关闭。
+     * <p>
+     * Create a sink writing to a FileChannel in batches. Bytes are collected in a buffer aligned to {@link #FILE_ALIGNMENT} and written through direct memory once it is full. The FileChannel is closed together with this sink.
+     *
+     * @param channel   需要写入的目标
+     * @param batchSize 每一次批量写入的字节数量，会被向上对齐到 {@link #FILE_ALIGNMENT} 的整数倍
+     * @param force     是否在刷新与关闭的时候调用 {@link FileChannel#force(boolean)} 确保数据已经写入到存储设备中
+     * @return 输出流对象
+     */
+    public static Utf8Sink of(FileChannel channel, int batchSize, boolean force) {
+        return batched(channel, batchSize, force, false);
+    }
+
+    /**
+     * 创建一个批量写入到 FileChannel 中的输出流。
+     *
+     * @param channel   需要写入的目标
+     * @param batchSize 每一次批量写入的字节数量
+     * @param force     是否在刷新与关闭的时候将数据强制写入到存储设备中
+     * @param truncate  是否在关闭的时候将文件截断到实际写入的位置
+     * @return 输出流对象
+     */
+    private static Utf8Sink batched(FileChannel channel, int batchSize, boolean force, boolean truncate) {
+        final int size = align(batchSize);
+        final ByteBuffer direct = ByteBuffer.allocateDirect(size);
+        return new Utf8Sink(new Encoder(size) {
+            @Override
+            void drain(byte[] bytes, int off, int len) throws IOException {
+                while (len > 0) {
+                    final int n = Math.min(len, size);
+                    direct.clear();
+                    direct.put(bytes, off, n).flip();
+                    while (direct.hasRemaining()) {
+                        channel.write(direct);
+                    }
+                    off += n;
+                    len -= n;
+                }
+            }
+
+            @Override
+            void flushTarget() throws IOException {
+                if (force) {
+                    channel.force(false);
+                }
+            }
+
+            @Override
+            void closeTarget() throws IOException {
+                try {
+                    this.flushTarget();
+                    if (truncate) {
+                        channel.truncate(channel.position());
+                    }
+                } finally {
+                    channel.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * 创建一个通过内存映射写入到 FileChannel 中的输出流，文件会被按照窗口大小逐段映射，当前窗口写满之后会映射下一个窗口，关闭的时候文件会被截断到实际写入的长度，并且会将 FileChannel 一起关闭。FileChannel 需要以读写模式打开。
+     * <p>
+     * Create a sink writing to a FileChannel through memory mapping. The file is mapped window by window and the next window is mapped once the current one is full. On close the file is truncated to the bytes actually written and the FileChannel is closed. The FileChannel must be opened for reading and writing.
+     * <p>
+     * Java 没有提供主动解除映射的方法，写完的窗口在对应的 MappedByteBuffer 被垃圾回收之前会一直保持映射，关闭输出流并不会立即释放它们。Windows 不允许截断仍然被映射的文件，因此在 Windows 中会改为使用与 {@link #of(FileChannel, int, boolean)} 相同的批量写入，关闭时同样会截断文件。
+     * <p>
+     * Java offers no way to unmap explicitly, so finished windows stay mapped until their MappedByteBuffer is garbage collected, closing the sink does not release them right away. Windows refuses to truncate a file that is still mapped, so on Windows the sink falls back to the same batched writes as {@link #of(FileChannel, int, boolean)} and still truncates the file on close.
+     *
+     * @param channel    需要写入的目标，会从当前的位置开始写入
+     * @param windowSize 每一个映射窗口的字节数量，会被向上对齐到 {@link #FILE_ALIGNMENT} 的整数倍
+     * @param force      是否在切换窗口、刷新与关闭的时候将映射的数据强制写入到存储设备中
+     * @return 输出流对象
+     * @throws IOException 获取 FileChannel 当前位置失败
+     */
+    public static Utf8Sink mapped(FileChannel channel, long windowSize, boolean force) throws IOException {
+        final long window = windowSize <= FILE_ALIGNMENT ? FILE_ALIGNMENT : (windowSize + FILE_ALIGNMENT - 1) / FILE_ALIGNMENT * FILE_ALIGNMENT;
+        final int bufferSize = (int) Math.min(window, DEFAULT_BUFFER_SIZE << 3);
+        if (!MAPPED_TRUNCATE) {
+            return batched(channel, bufferSize, force, true);
+        }
+        final long start = channel.position();
+        return new Utf8Sink(new Encoder(bufferSize) {
+            /**
+             * 当前映射窗口在文件中的起始位置
+             */
+            private long base = start;
+            private MappedByteBuffer map;
+
+            @Override
+            void drain(byte[] bytes, int off, int len) throws IOException {
+                while (len > 0) {
+                    if (map == null || !map.hasRemaining()) {
+                        this.remap();
+                    }
+                    final int n = Math.min(len, map.remaining());
+                    map.put(bytes, off, n);
+                    off += n;
+                    len -= n;
+                }
+            }
+
+            private void remap() throws IOException {
+                if (map != null) {
+                    base += map.position();
+                    if (force) {
+                        map.force();
+                    }
+                }
+                map = channel.map(FileChannel.MapMode.READ_WRITE, base, window);
+            }
+
+            @Override
+            void flushTarget() {
+                if (force && map != null) {
+                    map.force();
+                }
+            }
+
+            @Override
+            void closeTarget() throws IOException {
+                try {
+                    this.flushTarget();
+                    // 映射会将文件扩展到窗口的末尾 这里截断多余的部分
+                    final long end = map == null ? base : base + map.position();
+                    map = null;
+                    channel.truncate(end);
+                    channel.position(end);
+                } finally {
+                    channel.close();
+                }
+            }
+        });
+    }
+
+    private static int align(int size) {
+        if (size <= FILE_ALIGNMENT) {
+            return FILE_ALIGNMENT;
+        }
+        return (int) Math.min(((long) size + FILE_ALIGNMENT - 1) / FILE_ALIGNMENT * FILE_ALIGNMENT, Integer.MAX_VALUE - FILE_ALIGNMENT + 1);
+    }
+
+    /**
+     * 将一个已经编码好的字节数据直接写入到输出流中，适用于重复使用的结构字符，例如 `{` `":` `</` `>`。
+     * <p>
+     * Write pre-encoded bytes straight into the sink, intended for repeated structural tokens such as `{` `":` `</` `>`.
+     *
+     * @param token 需要被写入的字节数据
+     */
+    public void write(Token token) {
+        try {
+            encoder.writeBytes(token.bytes, 0, token.bytes.length);
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    /**
+     * 将一个结构字符写入到数据流中，如果数据流是 UTF-8 字节输出流，则会直接写入已经编码好的字节数据。
+     * <p>
+     * Write a structural token into the stream. If the stream is a UTF-8 byte sink the pre-encoded bytes are written directly.
+     *
+     * @param printWriter 需要被写入的数据流
+     * @param token       需要被写入的结构字符
+     */
+    public static void write(PrintWriter printWriter, Token token) {
+        if (printWriter instanceof Utf8Sink) {
+            ((Utf8Sink) printWriter).write(token);
+        } else {
+            printWriter.write(token.text);
+        }
+    }
+
+    /**
+     * @return 当前输出流已经输出的字节数量，包括还在缓冲区中的部分。
+     * <p>
+     * The number of bytes produced by this sink so far, including the part still in the buffer.
+     */
+    public long getByteCount() {
+        return encoder.count + encoder.position;
+    }
+
+    /**
+     * 如果在写入过程中出现了 IO 错误，则会在这里将错误抛出，这样调用者不需要再通过 checkError 来检查。
+     * <p>
+     * Rethrow the first IO error that happened while writing, so callers do not have to poll checkError.
+     *
+     * @throws UncheckedIOException 写入过程中出现的 IO 错误
+     */
+    public void rethrowError() {
+        if (encoder.error != null) {
+            throw new UncheckedIOException(encoder.error);
+        }
+    }
+
+    private void fail(IOException e) {
+        if (encoder.error == null) {
+            encoder.error = e;
+        }
+        this.setError();
+    }
+
+    @Override
+    public void write(int c) {
+        try {
+            encoder.write(c);
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    @Override
+    public void write(char[] buf, int off, int len) {
+        try {
+            encoder.write(buf, off, len);
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    @Override
+    public void write(char[] buf) {
+        this.write(buf, 0, buf.length);
+    }
+
+    @Override
+    public void write(String s, int off, int len) {
+        try {
+            encoder.write(s, off, len);
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    @Override
+    public void write(String s) {
+        this.write(s, 0, s.length());
+    }
+
+    @Override
+    public void flush() {
+        try {
+            encoder.flush();
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            encoder.close();
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    /**
+     * 预先编码好的结构字符，会同时保存字符串形式与 UTF-8 字节形式。
+     * <p>
+     * A pre-encoded structural token, holding both its String form and its UTF-8 bytes.
+     */
+    public static final class Token {
+        private final String text;
+        private final byte[] bytes;
+
+        private Token(String text) {
+            this.text = text;
+            this.bytes = text.getBytes(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * 创建一个结构字符。
+         *
+         * @param text 结构字符的字符串形式
+         * @return 预先编码好的结构字符
+         */
+        public static Token of(String text) {
+            return new Token(text);
+        }
+
+        /**
+         * @return 结构字符的字符串形式
+         */
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * 负责 UTF-8 编码的字符流，所有的字符会在这里被编码并写入到字节缓冲区中，缓冲区满了之后再交给目标。
+     * <p>
+     * The character stream doing the UTF-8 encoding, all characters are encoded into the byte buffer here and handed to the target once the buffer is full.
+     */
+    private abstract static class Encoder extends Writer {
+        private final byte[] buffer;
+        private int position;
+        private long count;
+        private char pendingHigh;
+        private IOException error;
+
+        Encoder(int bufferSize) {
+            this.buffer = new byte[bufferSize];
+        }
+
+        /**
+         * 将字节数据交给目标。
+         */
+        abstract void drain(byte[] bytes, int off, int len) throws IOException;
+
+        void flushTarget() throws IOException {
+        }
+
+        void closeTarget() throws IOException {
+        }
+
+        private void flushBuffer() throws IOException {
+            if (position > 0) {
+                drain(buffer, 0, position);
+                count += position;
+                position = 0;
+            }
+        }
+
+        private void ensure(int n) throws IOException {
+            if (position + n > buffer.length) {
+                flushBuffer();
+            }
+        }
+
+        void writeBytes(byte[] bytes, int off, int len) throws IOException {
+            if (pendingHigh != 0) {
+                pendingHigh = 0;
+                writeChar('?');
+            }
+            if (len > buffer.length - position) {
+                flushBuffer();
+                if (len > buffer.length) {
+                    drain(bytes, off, len);
+                    count += len;
+                    return;
+                }
+            }
+            System.arraycopy(bytes, off, buffer, position, len);
+            position += len;
+        }
+
+        private void writeChar(int c) throws IOException {
+            if (pendingHigh != 0) {
+                final char high = pendingHigh;
+                pendingHigh = 0;
+                if (Character.isLowSurrogate((char) c)) {
+                    final int codePoint = Character.toCodePoint(high, (char) c);
+                    ensure(4);
+                    buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                    return;
+                }
+                // 孤立的高位代理 使用 ? 替代
+                writeChar('?');
+            }
+            if (c < 0x80) {
+                ensure(1);
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate((char) c)) {
+                pendingHigh = (char) c;
+            } else if (Character.isLowSurrogate((char) c)) {
+                // 孤立的低位代理 使用 ? 替代
+                writeChar('?');
+            } else {
+                ensure(3);
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            writeChar(c & 0xFFFF);
+        }
+
+        @Override
+        public void write(String s, int off, int len) throws IOException {
+            final int end = off + len;
+            while (off < end) {
+                if (pendingHigh != 0) {
+                    writeChar(s.charAt(off++));
+                    continue;
+                }
+                if (position == buffer.length) {
+                    flushBuffer();
+                }
+                // ASCII 快速路径 直接将字符作为字节写入缓冲区
+                final int n = Math.min(end - off, buffer.length - position);
+                int i = 0;
+                for (char c; i < n && (c = s.charAt(off + i)) < 0x80; i++) {
+                    buffer[position + i] = (byte) c;
+                }
+                position += i;
+                off += i;
+                if (i < n) {
+                    writeChar(s.charAt(off++));
+                }
+            }
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) throws IOException {
+            final int end = off + len;
+            while (off < end) {
+                if (pendingHigh != 0) {
+                    writeChar(buf[off++]);
+                    continue;
+                }
+                if (position == buffer.length) {
+                    flushBuffer();
+                }
+                // ASCII 快速路径 直接将字符作为字节写入缓冲区
+                final int n = Math.min(end - off, buffer.length - position);
+                int i = 0;
+                for (char c; i < n && (c = buf[off + i]) < 0x80; i++) {
+                    buffer[position + i] = (byte) c;
+                }
+                position += i;
+                off += i;
+                if (i < n) {
+                    writeChar(buf[off++]);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBuffer();
+            flushTarget();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (pendingHigh != 0) {
+                pendingHigh = 0;
+                writeChar('?');
+            }
+            flushBuffer();
+            closeTarget();
+        }
+    }
+}
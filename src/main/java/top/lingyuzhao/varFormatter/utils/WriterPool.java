@@ -0,0 +1,174 @@
+package top.lingyuzhao.varFormatter.utils;
+
+import java.io.PrintWriter;
+
+/**
+ * 字符串输出流缓冲池，每一个线程都持有若干个可以重复使用的字符串输出流，返回字符串的格式化函数会从这里租借输出流，避免每一次格式化都创建新的 StringWriter 并从很小的容量开始反复扩容。
+ * <p>
+ * String writer pool. Every thread keeps a few reusable string writers, and the String returning format functions lease a writer from here instead of creating a new StringWriter and growing it from a small capacity on every call.
+ * <p>
+ * 租借是按照栈的方式进行的，嵌套或重入的格式化调用会拿到不同的输出流，因此租借之后必须在 finally 中归还。容量超过保留上限的缓冲区在归还的时候会被丢弃，避免一次超大的格式化长期占用内存。
+ * <p>
+ * Leases work like a stack, nested or re-entrant format calls get different writers, so every lease must be released in a finally block. Buffers whose capacity exceeds the retention limit are dropped on release so that one huge document does not pin memory.
+ *
+ * @author zhao
+ */
+public final class WriterPool {
+
+    /**
+     * 默认的单个缓冲区最大保留容量（字符数），可以通过系统属性 varFormatter.buffer.maxRetained 修改。
+     * <p>
+     * Default maximum retained capacity of a single buffer in characters, can be changed with the system property varFormatter.buffer.maxRetained.
+     */
+    public static final int DEFAULT_MAX_RETAINED = 64 * 1024;
+
+    /**
+     * 每一个线程最多缓存的输出流数量，也就是会被复用的最大嵌套深度，更深的调用会使用临时的输出流。
+     */
+    private static final int MAX_DEPTH = 4;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final ThreadLocal<Stack> STACK = ThreadLocal.withInitial(Stack::new);
+
+    private static volatile int maxRetained = Integer.getInteger("varFormatter.buffer.maxRetained", DEFAULT_MAX_RETAINED);
+
+    private WriterPool() {
+    }
+
+    /**
+     * @return 单个缓冲区在归还之后最多可以保留的容量（字符数）
+     * <p>
+     * The maximum capacity in characters a single buffer may keep after it is released
+     */
+    public static int getMaxRetained() {
+        return maxRetained;
+    }
+
+    /**
+     * 设置单个缓冲区在归还之后最多可以保留的容量，设置为 0 代表不进行缓存。
+     * <p>
+     * Set the maximum capacity a single buffer may keep after it is released, 0 disables the pool.
+     *
+     * @param maxRetained 最大保留容量（字符数）
+     */
+    public static void setMaxRetained(int maxRetained) {
+        if (maxRetained < 0) {
+            throw new IllegalArgumentException("maxRetained must not be negative: " + maxRetained);
+        }
+        WriterPool.maxRetained = maxRetained;
+    }
+
+    /**
+     * 租借一个已经清空的输出流，使用完毕之后必须调用 {@link Lease#release()} 归还。
+     * <p>
+     * Lease a cleared writer, it must be returned with {@link Lease#release()} when done.
+     *
+     * @return 租借到的输出流
+     */
+    public static Lease acquire() {
+        final Stack stack = STACK.get();
+        final int depth = stack.depth++;
+        if (depth >= MAX_DEPTH) {
+            return new Lease(stack, -1);
+        }
+        Lease lease = stack.leases[depth];
+        if (lease == null) {
+            lease = stack.leases[depth] = new Lease(stack, depth);
+        }
+        lease.leased = true;
+        return lease;
+    }
+
+    /**
+     * 获取缓冲池中的一个输出流已经写入的字符数量。
+     * <p>
+     * Get the number of chars written into a writer leased from this pool.
+     *
+     * @param printWriter 需要查看的输出流
+     * @return 已经写入的字符数量，如果输出流不是从缓冲池中租借的则返回 -1
+     * <p>
+     * The number of chars written, or -1 if the writer was not leased from this pool
+     */
+    public static int lengthOf(PrintWriter printWriter) {
+        return printWriter instanceof LeasedPrintWriter ? ((LeasedPrintWriter) printWriter).writer.length() : -1;
+    }
+
+    /**
+     * 一个线程中所有的缓存输出流。
+     */
+    private static final class Stack {
+        private final Lease[] leases = new Lease[MAX_DEPTH];
+        private int depth;
+    }
+
+    /**
+     * 租借到的输出流，包含字符串输出流与包装它的 PrintWriter。
+     * <p>
+     * A leased writer, holding the string writer and the PrintWriter wrapping it.
+     */
+    public static final class Lease {
+        private final Stack stack;
+        private final int slot;
+        private final StringBuilderWriter writer;
+        private final LeasedPrintWriter printWriter;
+        private boolean leased;
+
+        private Lease(Stack stack, int slot) {
+            this.stack = stack;
+            this.slot = slot;
+            this.writer = new StringBuilderWriter(INITIAL_CAPACITY);
+            this.printWriter = new LeasedPrintWriter(writer);
+            this.leased = true;
+        }
+
+        /**
+         * @return 可以写入数据的 PrintWriter
+         */
+        public PrintWriter getPrintWriter() {
+            return printWriter;
+        }
+
+        /**
+         * @return 已经写入的数据
+         */
+        @Override
+        public String toString() {
+            return writer.toString();
+        }
+
+        /**
+         * 归还输出流，归还之后不能再使用此对象。
+         * <p>
+         * Return the writer, this object must not be used afterwards.
+         */
+        public void release() {
+            if (!leased) {
+                return;
+            }
+            leased = false;
+            stack.depth--;
+            if (slot < 0) {
+                return;
+            }
+            if (writer.capacity() > maxRetained || printWriter.checkError()) {
+                // 过大或者已经出错的缓冲区不再保留
+                stack.leases[slot] = null;
+            } else {
+                writer.reset();
+            }
+        }
+    }
+
+    /**
+     * 租借出去的 PrintWriter，记录了它包装的字符串输出流，便于查看已经写入的数据量。
+     */
+    private static final class LeasedPrintWriter extends PrintWriter {
+        private final StringBuilderWriter writer;
+
+        private LeasedPrintWriter(StringBuilderWriter writer) {
+            super(writer, false);
+            this.writer = writer;
+        }
+    }
+}
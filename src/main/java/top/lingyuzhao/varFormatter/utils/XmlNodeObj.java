@@ -1,21 +1,47 @@
 package top.lingyuzhao.varFormatter.utils;
 
-import java.util.HashMap;
+import java.io.PrintWriter;
+import java.util.Arrays;
 
 /**
  * XML 中的节点对象，此节点对象类型继承自 DataObj 因此速度与性能较快，其拓展了一个属性键值对的操作，允许在 xml 节点中添加属性和配置。
  * <p>
  * The node object in XML inherits the type of DataObj, making it faster and more efficient. It extends the operation of attribute key value pairs, allowing for the addition of attributes and configurations in XML nodes.
+ * <p>
+ * 属性会按照第一次设置的顺序输出，属性值会被转义，转义之后的属性字符串会被缓存，直到属性再次被修改。
+ * <p>
+ * Attributes are written in the order they were first set and their values are escaped. The escaped attribute string is cached until the attributes change again.
  *
  * @author zhao
  */
 public class XmlNodeObj extends DataObj {
     /**
-     * 节点属性存储集合，用于存储某个节点的属性键值对。
+     * 属性名字的存储数组，与属性值的数组按照下标一一对应。
+     * <p>
+     * Attribute names, matching the attribute values by index.
+     */
+    private String[] attrKeys = new String[2];
+
+    /**
+     * 属性值的存储数组。
+     * <p>
+     * Attribute values.
+     */
+    private String[] attrValues = new String[2];
+
+    /**
+     * 属性的数量。
+     * <p>
+     * The number of attributes.
+     */
+    private int attrSize;
+
+    /**
+     * 转义并编码之后的属性字符串，为 null 代表属性被修改过，需要重新生成。
      * <p>
-     * Node attribute storage collection, used to store the attribute key value pairs of a node.
+     * The escaped and encoded attribute string, null means the attributes changed and it must be rebuilt.
      */
-    private final HashMap<String, Object> hashMap = new HashMap<>();
+    private transient Utf8Sink.Token attrToken;
 
     /**
      * 当前数据对象的构造函数
@@ -46,17 +72,54 @@ public class XmlNodeObj extends DataObj {
      * The value corresponding to the specified key, if the value does not exist, returns null directly
      */
     public Object getAttr(String key) {
-        return hashMap.get(key);
+        final int index = this.indexOfAttr(key);
+        return index < 0 ? null : attrValues[index];
     }
 
     /**
-     * 设置当前节点对象的属性值
+     * 设置当前节点对象的属性值，已经存在的属性会保持原本的位置，值为 null 时会删除这个属性。
+     * <p>
+     * Set an attribute of the current node. An existing attribute keeps its position, a null value removes the attribute.
      *
      * @param key   当前节点属性对应的 key
      * @param value key 对应的配置项的值
      */
     public void setAttr(String key, String value) {
-        hashMap.put(key, value);
+        final int index = this.indexOfAttr(key);
+        if (value == null) {
+            if (index >= 0) {
+                final int moved = attrSize - index - 1;
+                System.arraycopy(attrKeys, index + 1, attrKeys, index, moved);
+                System.arraycopy(attrValues, index + 1, attrValues, index, moved);
+                attrKeys[--attrSize] = null;
+                attrValues[attrSize] = null;
+                attrToken = null;
+            }
+            return;
+        }
+        if (index >= 0) {
+            if (!value.equals(attrValues[index])) {
+                attrValues[index] = value;
+                attrToken = null;
+            }
+            return;
+        }
+        if (attrSize == attrKeys.length) {
+            attrKeys = Arrays.copyOf(attrKeys, attrSize << 1);
+            attrValues = Arrays.copyOf(attrValues, attrSize << 1);
+        }
+        attrKeys[attrSize] = key;
+        attrValues[attrSize++] = value;
+        attrToken = null;
+    }
+
+    /**
+     * @return 当前节点中属性的数量
+     * <p>
+     * The number of attributes of the current node
+     */
+    public int getAttrCount() {
+        return attrSize;
     }
 
     /**
@@ -69,15 +132,47 @@ public class XmlNodeObj extends DataObj {
      * The string of attribute values for the current node object
      */
     public String getAttrStr() {
-        StringBuilder stringBuilder = new StringBuilder();
-        hashMap.forEach((k, v) -> {
-            stringBuilder.append(' ').append(k).append('=');
-            if (v instanceof String) {
-                stringBuilder.append('"').append(v).append('"');
-            } else {
-                stringBuilder.append(v.toString());
+        return this.attrToken().getText();
+    }
+
+    /**
+     * 将当前节点的属性字符串直接写入到数据流中，如果数据流是 UTF-8 字节输出流，会直接写入缓存的字节。
+     * <p>
+     * Write the attribute string of the current node straight into the stream. If the stream is a UTF-8 byte sink the cached bytes are written directly.
+     *
+     * @param printWriter 需要被写入的数据流
+     *                    <p>
+     *                    The stream to write into
+     */
+    public void writeAttrs(PrintWriter printWriter) {
+        if (attrSize != 0) {
+            Utf8Sink.write(printWriter, this.attrToken());
+        }
+    }
+
+    /**
+     * @return 转义并编码之后的属性字符串，属性没有被修改时直接返回缓存
+     */
+    private Utf8Sink.Token attrToken() {
+        Utf8Sink.Token token = attrToken;
+        if (token == null) {
+            final StringBuilder stringBuilder = new StringBuilder(attrSize << 4);
+            for (int i = 0; i < attrSize; i++) {
+                stringBuilder.append(' ').append(attrKeys[i]).append("=\"")
+                        .append(Escaper.XML_ATTRIBUTE.escape(attrValues[i])).append('"');
+            }
+            token = Utf8Sink.Token.of(stringBuilder.toString());
+            attrToken = token;
+        }
+        return token;
+    }
+
+    private int indexOfAttr(String key) {
+        for (int i = 0; i < attrSize; i++) {
+            if (attrKeys[i].equals(key)) {
+                return i;
             }
-        });
-        return stringBuilder.toString();
+        }
+        return -1;
     }
 }
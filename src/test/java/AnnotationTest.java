@@ -0,0 +1,72 @@
+import top.lingyuzhao.varFormatter.annotation.FormatField;
+import top.lingyuzhao.varFormatter.annotation.FormatIgnore;
+import top.lingyuzhao.varFormatter.annotation.FormatNaming;
+import top.lingyuzhao.varFormatter.annotation.NamingStrategy;
+import top.lingyuzhao.varFormatter.core.ManualFormatter;
+import top.lingyuzhao.varFormatter.core.VarFormatter;
+
+import java.util.Random;
+
+/**
+ * 字段注解与继承的测试类，检查 FormatField FormatIgnore FormatNaming 注解以及父类字段的解析规则，格式化计划与逐个字段的格式化需要得到相同的结果。
+ *
+ * @author zhao
+ */
+public class AnnotationTest {
+
+    public static void main(String[] args) {
+        final ManualFormatter formatter = (ManualFormatter) VarFormatter.JSON.getFormatter(false);
+
+        // 父类的字段在前 被子类同名字段隐藏的父类字段会被替换 static 与 transient 字段会被跳过 除非被 FormatField 标记
+        // 命名策略只作用于没有在 FormatField 中指定名字的字段 并且父类的字段同样使用子类的命名策略
+        final String child = "{\"base_name\":\"b\",\"user_name\":\"u\",\"ID\":7,\"shadow\":\"child\",\"kept\":\"k\",\"http_url_value\":\"h\"}";
+        check(formatter.format(new Child()), child);
+        // 使用格式化计划
+        formatter.setCompilePlan(true);
+        check(formatter.format(new Child()), child);
+        formatter.setCompilePlan(false);
+
+        // 其它的命名策略
+        check(formatter.format(new Kebab()), "{\"user-name\":\"u\",\"http-url-value\":\"h\"}");
+
+        // JDK 中的父类不会被解析
+        check(formatter.format(new Seeded()), "{\"n\":1}");
+        System.out.println("ok");
+    }
+
+    private static void check(String actual, String expected) {
+        if (!expected.equals(actual)) {
+            throw new AssertionError("期望 " + expected + " 实际 " + actual);
+        }
+    }
+
+    public static class Base {
+        static int count = 5;
+        String baseName = "b";
+        int shadow = 1;
+        transient String temp = "t";
+    }
+
+    @FormatNaming(NamingStrategy.SNAKE_CASE)
+    public static class Child extends Base {
+        String userName = "u";
+        @FormatField("ID")
+        int id = 7;
+        @FormatIgnore
+        String secret = "s";
+        String shadow = "child";
+        @FormatField
+        transient String kept = "k";
+        String httpURLValue = "h";
+    }
+
+    @FormatNaming(NamingStrategy.KEBAB_CASE)
+    public static class Kebab {
+        String userName = "u";
+        String httpURLValue = "h";
+    }
+
+    public static class Seeded extends Random {
+        int n = 1;
+    }
+}
@@ -0,0 +1,131 @@
+import top.lingyuzhao.varFormatter.core.Formatter;
+import top.lingyuzhao.varFormatter.core.StructuralCache;
+import top.lingyuzhao.varFormatter.core.StructuralNameCache;
+import top.lingyuzhao.varFormatter.core.VarFormatter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 缓冲池压力测试类，使用多个线程同时对大量不同的类进行格式化操作，检查缓冲池在并发情况下的一致性。
+ *
+ * @author zhao
+ */
+public class CacheStressTest {
+
+    private static final int THREADS = 64;
+    private static final int CLASSES = 512;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws Exception {
+        // 使用单例模式 获取到 json 格式化组件 所有线程共享同一个格式化组件
+        final Formatter formatter = VarFormatter.JSON.getFormatter(true);
+        final String expected = formatter.format(new Dto());
+        // 通过不同的类加载器加载同一个类，以此获取到大量不同的 Class 对象
+        final byte[] bytes = readClassBytes(Dto.class);
+        final List<Class<?>> classes = new ArrayList<>(CLASSES);
+        for (int i = 0; i < CLASSES; i++) {
+            classes.add(new IsolatedLoader(Dto.class.getName(), bytes).loadClass(Dto.class.getName()));
+        }
+        final List<Object> objects = new ArrayList<>(CLASSES);
+        for (Class<?> aClass : classes) {
+            objects.add(aClass.getDeclaredConstructor().newInstance());
+        }
+        final long missBefore = StructuralCache.getMissCount();
+        final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Integer>> futures = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final int offset = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                int errors = 0;
+                for (int r = 0; r < ROUNDS; r++) {
+                    for (int i = 0; i < CLASSES; i++) {
+                        final Object o = objects.get((i + offset) % CLASSES);
+                        if (!expected.equals(formatter.format(o))) {
+                            errors++;
+                        }
+                    }
+                }
+                return errors;
+            }));
+        }
+        start.countDown();
+        int errors = 0;
+        for (Future<Integer> future : futures) {
+            errors += future.get();
+        }
+        pool.shutdown();
+        final long misses = StructuralCache.getMissCount() - missBefore;
+        System.out.println("errors = " + errors);
+        System.out.println("StructuralCache hit = " + StructuralCache.getHitCount() + " miss = " + StructuralCache.getMissCount());
+        System.out.println("StructuralNameCache hit = " + StructuralNameCache.getHitCount() + " miss = " + StructuralNameCache.getMissCount());
+        if (errors != 0) {
+            throw new AssertionError("格式化结果不一致：" + errors);
+        }
+        // 每一个类至少会被解析一次，并发竞争时允许少量的重复解析
+        if (misses < CLASSES) {
+            throw new AssertionError("缓冲池未命中次数异常：" + misses);
+        }
+    }
+
+    private static byte[] readClassBytes(Class<?> aClass) throws IOException {
+        final String resource = aClass.getName().replace('.', '/') + ".class";
+        try (InputStream inputStream = aClass.getClassLoader().getResourceAsStream(resource);
+             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            if (inputStream == null) {
+                throw new IOException("找不到类文件：" + resource);
+            }
+            final byte[] buffer = new byte[4096];
+            int len;
+            while ((len = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, len);
+            }
+            return outputStream.toByteArray();
+        }
+    }
+
+    /**
+     * 每一个实例都会重新定义一次目标类，这样同一个类名会对应不同的 Class 对象。
+     */
+    static class IsolatedLoader extends ClassLoader {
+        private final String name;
+        private final byte[] bytes;
+
+        IsolatedLoader(String name, byte[] bytes) {
+            super(IsolatedLoader.class.getClassLoader());
+            this.name = name;
+            this.bytes = bytes;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!this.name.equals(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    c = defineClass(name, bytes, 0, bytes.length);
+                }
+                return c;
+            }
+        }
+    }
+
+    // 准备了一个简单的类，会被多个类加载器重复加载
+    public static class Dto {
+        String name = "zhao";
+        int age = 1024;
+        long id = 1L << 40;
+        double score = 99.5;
+    }
+}
@@ -0,0 +1,73 @@
+import top.lingyuzhao.varFormatter.core.ManualFormatter;
+import top.lingyuzhao.varFormatter.core.VarFormatter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文件导出的测试类，检查批量写入与内存映射写入的文件内容都与 format 的结果一致，并且覆盖一个更长的已有文件时不会留下旧的数据。
+ *
+ * @author zhao
+ */
+public class FileExportTest {
+
+    public static void main(String[] args) throws IOException {
+        final Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = 0; i < 200; i++) {
+            data.put("key" + i, i % 3 == 0 ? "值" + i : i);
+        }
+        final List<Object> records = new ArrayList<>(Arrays.asList(data, data, data));
+
+        final Path path = Files.createTempFile("varFormatter", ".json");
+        try {
+            for (VarFormatter type : new VarFormatter[]{VarFormatter.JSON, VarFormatter.XML, VarFormatter.YAML}) {
+                final ManualFormatter formatter = (ManualFormatter) type.getFormatter(false);
+                final byte[] expected = formatter.format(data).getBytes(StandardCharsets.UTF_8);
+                final ByteArrayOutputStream all = new ByteArrayOutputStream();
+                formatter.formatAll(records.iterator(), "all", all);
+
+                // 批量写入 批次的大小小于文件的长度
+                formatter.setFileBatchSize(64);
+                export(formatter, data, records, path, expected, all.toByteArray());
+
+                // 内存映射写入 文件会跨越多个映射窗口
+                formatter.setFileMappedWindow(100);
+                export(formatter, data, records, path, expected, all.toByteArray());
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+        System.out.println("ok");
+    }
+
+    private static void export(ManualFormatter formatter, Object data, List<Object> records, Path path, byte[] expected, byte[] all) throws IOException {
+        // 被覆盖的文件比写入的数据更长 写入之后需要被截断
+        writeLonger(path, all.length);
+        formatter.formatToFile(data, path);
+        check(Files.readAllBytes(path), expected);
+
+        writeLonger(path, all.length);
+        formatter.formatAll(records.iterator(), "all", path);
+        check(Files.readAllBytes(path), all);
+    }
+
+    private static void writeLonger(Path path, int length) throws IOException {
+        final byte[] bytes = new byte[length * 2];
+        Arrays.fill(bytes, (byte) '#');
+        Files.write(path, bytes);
+    }
+
+    private static void check(byte[] actual, byte[] expected) {
+        if (!Arrays.equals(actual, expected)) {
+            throw new AssertionError("期望 " + new String(expected, StandardCharsets.UTF_8) + " 实际 " + new String(actual, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+import top.lingyuzhao.varFormatter.core.Formatter;
+import top.lingyuzhao.varFormatter.core.VarFormatter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HTML 格式化组件根节点的测试类，检查 Map 与集合根节点会按照 XML 的方式分发，对象根节点依旧按照字段的声明顺序输出。
+ *
+ * @author zhao
+ */
+public class HtmlRootTest {
+
+    public static void main(String[] args) {
+        final Formatter formatter = VarFormatter.HTML.getFormatter(false);
+
+        // Map 与集合根节点不能通过反射读取 JDK 中的类
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("k", "v");
+        map.put("n", 1);
+        check(formatter.format(map), "<map><k>v</k><n>1</n></map>");
+        check(formatter.format(new ArrayList<>(Arrays.asList(1, 2))),
+                "<java.util.ArrayList><java.util.ArrayList>1</java.util.ArrayList><java.util.ArrayList>2</java.util.ArrayList></java.util.ArrayList>");
+
+        // 对象根节点按照字段的声明顺序输出
+        check(formatter.format(new Page()), "<Page><title>t</title><body>b</body><size>3</size></Page>");
+        System.out.println("ok");
+    }
+
+    private static void check(String actual, String expected) {
+        if (!expected.equals(actual)) {
+            throw new AssertionError("期望 " + expected + " 实际 " + actual);
+        }
+    }
+
+    // 准备了一个字段顺序与字母顺序不同的类
+    public static class Page {
+        String title = "t";
+        String body = "b";
+        int size = 3;
+    }
+}
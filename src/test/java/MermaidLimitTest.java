@@ -0,0 +1,120 @@
+import top.lingyuzhao.varFormatter.core.MermaidFormatter;
+import top.lingyuzhao.varFormatter.core.VarFormatter;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mermaid 格式化组件输出规模的测试类，检查节点数量上限会计算图中的每一个节点，以及重复边的去除与图的拆分。
+ *
+ * @author zhao
+ */
+public class MermaidLimitTest {
+
+    private static final Pattern NODE = Pattern.compile("\\bn\\d+v?\\b");
+
+    public static void main(String[] args) {
+        final Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            final Map<String, Object> child = new LinkedHashMap<>();
+            child.put("x", i);
+            child.put("y", "s");
+            child.put("z", Arrays.asList(1, 2));
+            data.put("k" + i, child);
+        }
+        data.put("v", 1);
+
+        // 节点数量上限 紧凑的节点编号中每一个节点都有唯一的编号 值节点的编号以 v 结尾
+        final MermaidFormatter formatter = (MermaidFormatter) VarFormatter.MERMAID.getFormatter(false);
+        formatter.setCompactIds(true);
+        final int total = countNodes(formatter.format(data, "root"));
+        check(total, 1 + 5 * (1 + 2 + 2 + 1 + 2 + 2) + 2);
+        // 还没有输出完毕的节点都预留了一个概括节点的位置 最后一个元素写入时根节点依旧预留着位置 因此完整的输出需要多出一个位置
+        for (int maxNodes = 2; maxNodes <= total + 1; maxNodes++) {
+            formatter.setMaxNodes(maxNodes);
+            final String graph = formatter.format(data, "root");
+            final int nodes = countNodes(graph);
+            if (nodes > maxNodes) {
+                throw new AssertionError("节点数量上限 " + maxNodes + " 实际 " + nodes + "\n" + graph);
+            }
+            check(graph.contains(" more"), maxNodes <= total);
+        }
+        formatter.setMaxNodes(6);
+        check(formatter.format(data, "root"), "n0[\"root\"]==Map>Map==>n1[\"k0\"]\n" +
+                "n1==Map>String/Number==>n2[\"x\"]\n" +
+                "n2--Map>value-->n2v{\"0\"}\n" +
+                "n1-.->n3[\"+2 more\"]\n" +
+                "n0-.->n4[\"+5 more\"]\n");
+        formatter.setMaxNodes(0);
+
+        // 不拼接名字的时候 同名的字段对应同一个节点 重复的边只会输出一次
+        final Map<String, Object> repeated = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            final Map<String, Object> child = new LinkedHashMap<>();
+            child.put("x", 1);
+            repeated.put("k" + i, child);
+        }
+        final MermaidFormatter plain = (MermaidFormatter) VarFormatter.MERMAID.getFormatter(false);
+        check(plain.format(repeated, "root").split("\n").length, 9);
+        plain.setDedupEdges(true);
+        check(plain.format(repeated, "root"), "root==Map>Map==>k0\n" +
+                "k0==Map>String/Number==>x\n" +
+                "x--Map>value-->xv{\"1\"}\n" +
+                "root==Map>Map==>k1\n" +
+                "k1==Map>String/Number==>x\n" +
+                "root==Map>Map==>k2\n" +
+                "k2==Map>String/Number==>x\n");
+
+        // 拆分图 处于拆分深度的节点成为单独的图 节点数量上限对每一个图单独计算
+        formatter.setSplitDepth(1);
+        final List<StringWriter> parts = new ArrayList<>();
+        check(formatter.formatToStreams(repeated, i -> sink(parts)), 4);
+        check(parts.get(0).toString(), "n0[\"map\"]==Map>Map==>n1[\"k0\"]\n" +
+                "n1==>n2[[\"part 1\"]]\n" +
+                "n0==Map>Map==>n3[\"k1\"]\n" +
+                "n3==>n4[[\"part 2\"]]\n" +
+                "n0==Map>Map==>n5[\"k2\"]\n" +
+                "n5==>n6[[\"part 3\"]]\n");
+        for (int i = 1; i < 4; i++) {
+            check(parts.get(i).toString(), "n0[\"k" + (i - 1) + "\"]==Map>String/Number==>n1[\"x\"]\n" +
+                    "n1--Map>value-->n1v{\"1\"}\n");
+        }
+        parts.clear();
+        formatter.setMaxNodes(4);
+        check(formatter.formatToStreams(data, i -> sink(parts)), 2);
+        for (StringWriter part : parts) {
+            check(countNodes(part.toString()) <= 4, true);
+        }
+        System.out.println("ok");
+    }
+
+    private static PrintWriter sink(List<StringWriter> parts) {
+        final StringWriter writer = new StringWriter();
+        parts.add(writer);
+        return new PrintWriter(writer);
+    }
+
+    private static int countNodes(String graph) {
+        final Set<String> nodes = new HashSet<>();
+        final Matcher matcher = NODE.matcher(graph);
+        while (matcher.find()) {
+            nodes.add(matcher.group());
+        }
+        return nodes.size();
+    }
+
+    private static void check(Object actual, Object expected) {
+        if (!expected.equals(actual)) {
+            throw new AssertionError("期望 " + expected + " 实际 " + actual);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import top.lingyuzhao.varFormatter.core.ManualFormatter;
+import top.lingyuzhao.varFormatter.core.VarFormatter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 引用追踪的测试类，检查被共享的对象在 JSON、XML 与 YAML 中只会被完整的输出一次，之后输出的是 `$ref`、`idref` 与别名，带有名字的入口也需要打开引用表，包含自己的集合不能导致栈溢出。
+ *
+ * @author zhao
+ */
+public class ReferenceTrackingTest {
+
+    public static void main(String[] args) {
+        final Node node = new Node();
+        final List<Object> list = new ArrayList<>(Arrays.asList(node, node, node));
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("a", node);
+        map.put("b", node);
+
+        // JSON 第一次输出时写入 $id 之后写入 $ref
+        final ManualFormatter json = tracking(VarFormatter.JSON);
+        final String jsonList = "[{\"$id\":\"1\",\"name\":\"n\",\"self\":{\"$ref\":\"1\"}},{\"$ref\":\"1\"},{\"$ref\":\"1\"}]";
+        check(json.format((Object) list), jsonList);
+        check(json.format(list, "l"), jsonList);
+        check(json.format(map, "m"), "{\"a\":{\"$id\":\"1\",\"name\":\"n\",\"self\":{\"$ref\":\"1\"}},\"b\":{\"$ref\":\"1\"}}");
+
+        // XML 第一次输出时写入 id 属性 之后写入 idref 属性
+        final ManualFormatter xml = tracking(VarFormatter.XML);
+        check(xml.format(list, "l"), "<l><l id=\"1\"><name>n</name><self idref=\"1\"></self></l><l idref=\"1\"></l><l idref=\"1\"></l></l>");
+        check(xml.format(map, "m"), "<m><a id=\"1\"><name>n</name><self idref=\"1\"></self></a><b idref=\"1\"></b></m>");
+
+        // YAML 第一次输出时写入锚点 之后写入别名
+        final ManualFormatter yaml = tracking(VarFormatter.YAML);
+        final List<?> yamlList = (List<?>) load(yaml.format(list, "l")).get("l");
+        check(yamlList.size(), 3);
+        for (Object o : yamlList) {
+            check(o == yamlList.get(0), true);
+            check(((Map<?, ?>) o).get("self") == o, true);
+        }
+        final Map<?, ?> yamlMap = (Map<?, ?>) load(yaml.format(map, "m")).get("m");
+        check(yamlMap.get("a") == yamlMap.get("b"), true);
+
+        // 直接以及通过其它集合间接包含自己的集合
+        final List<Object> cycle = new ArrayList<>();
+        cycle.add(1);
+        cycle.add(cycle);
+        final List<Object> outer = new ArrayList<>();
+        final List<Object> inner = new ArrayList<>();
+        outer.add(inner);
+        inner.add(outer);
+        inner.add("s");
+
+        // JSON 的数组不能携带引用编号 需要抛出异常而不是栈溢出
+        checkThrows(() -> json.format(cycle, "l"));
+        checkThrows(() -> json.format((Object) outer));
+        // 被共享但没有形成环的集合会被完整的输出多次
+        final List<Object> shared = new ArrayList<>(Arrays.asList(1, 2));
+        final Map<String, Object> lists = new LinkedHashMap<>();
+        lists.put("a", shared);
+        lists.put("b", shared);
+        check(json.format(lists, "m"), "{\"a\":[1,2],\"b\":[1,2]}");
+
+        // XML 的集合元素携带 id 属性
+        check(xml.format(cycle, "l"), "<l id=\"1\"><l>1</l><l idref=\"1\"></l></l>");
+        check(xml.format(outer, "l"), "<l id=\"1\"><l><l idref=\"1\"></l><l>s</l></l></l>");
+        check(xml.format(lists, "m"), "<m><a id=\"1\"><a>1</a><a>2</a></a><b idref=\"1\"></b></m>");
+
+        // YAML 的序列携带锚点
+        final List<?> yamlCycle = (List<?>) load(yaml.format(cycle, "l")).get("l");
+        check(yamlCycle.get(0), 1);
+        check(yamlCycle.get(1) == yamlCycle, true);
+        final List<?> yamlOuter = (List<?>) load(yaml.format((Object) outer)).get("java.util.ArrayList");
+        check(((List<?>) yamlOuter.get(0)).get(0) == yamlOuter, true);
+        final Map<?, ?> yamlLists = (Map<?, ?>) load(yaml.format(lists, "m")).get("m");
+        check(yamlLists.get("a"), shared);
+        check(yamlLists.get("a") == yamlLists.get("b"), true);
+        System.out.println("ok");
+    }
+
+    private static ManualFormatter tracking(VarFormatter type) {
+        final ManualFormatter formatter = (ManualFormatter) type.getFormatter(false);
+        formatter.setTrackReferences(true);
+        return formatter;
+    }
+
+    private static Map<?, ?> load(String yaml) {
+        final LoaderOptions options = new LoaderOptions();
+        options.setAllowRecursiveKeys(true);
+        try {
+            return new Yaml(options).load(yaml);
+        } catch (RuntimeException e) {
+            throw new AssertionError("无法解析的 YAML：\n" + yaml, e);
+        }
+    }
+
+    private static void checkThrows(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (IllegalStateException e) {
+            return;
+        }
+        throw new AssertionError("期望 IllegalStateException");
+    }
+
+    private static void check(Object actual, Object expected) {
+        if (!expected.equals(actual)) {
+            throw new AssertionError("期望 " + expected + " 实际 " + actual);
+        }
+    }
+
+    // 准备了一个引用自己的类
+    public static class Node {
+        String name = "n";
+        Node self = this;
+    }
+}
@@ -0,0 +1,103 @@
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import top.lingyuzhao.varFormatter.core.Formatter;
+import top.lingyuzhao.varFormatter.core.VarFormatter;
+import top.lingyuzhao.varFormatter.core.YamlFormatter;
+import top.lingyuzhao.varFormatter.utils.DataObj;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * YAML 格式化组件的往返测试类，将各种根节点的格式化结果交给 SnakeYAML 解析，检查解析出的数据与原始数据一致。
+ *
+ * @author zhao
+ */
+public class YamlRoundTripTest {
+
+    public static void main(String[] args) {
+        final YamlFormatter formatter = (YamlFormatter) VarFormatter.YAML.getFormatter(false);
+
+        // 对象根节点 包含需要加引号的字符串以及 NaN 与无穷大
+        final Map<?, ?> dto = (Map<?, ?>) single(load(formatter.format(new Dto())));
+        check(dto.get("text"), "x: y");
+        check(dto.get("yes"), "yes");
+        check(dto.get("score"), 99.5);
+        check(((Double) dto.get("nan")).isNaN(), true);
+        check(dto.get("inf"), Double.POSITIVE_INFINITY);
+        check(dto.get("ninf"), Double.NEGATIVE_INFINITY);
+        check(dto.get("list"), Arrays.asList(1, 2));
+        check(dto.get("empty"), Collections.emptyMap());
+
+        // Map 根节点
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("x", 1);
+        map.put("y", Arrays.asList("a", "b"));
+        check(load(formatter.format(map)), Collections.singletonMap("map", map));
+
+        // DataObj 根节点
+        final DataObj dataObj = new DataObj("root");
+        dataObj.put("k", "v");
+        check(load(formatter.format(dataObj)), Collections.singletonMap("root", Collections.singletonMap("k", "v")));
+
+        // 集合根节点
+        final List<Object> list = new ArrayList<>(Arrays.asList(1, "two", 3.5));
+        check(single(load(formatter.format(list))), list);
+        check(single(load(formatter.format(new ArrayList<>()))), Collections.emptyList());
+
+        // 空的根节点
+        check(load(formatter.format((Object) null)), Collections.singletonMap("map", Collections.emptyMap()));
+        check(load(formatter.format(new HashMap<>())), Collections.singletonMap("map", Collections.emptyMap()));
+
+        // 引用追踪 根节点的锚点需要写在键值分隔符之后
+        formatter.setTrackReferences(true);
+        try {
+            final Map<String, Object> cycle = new LinkedHashMap<>();
+            cycle.put("self", cycle);
+            final Map<?, ?> loaded = (Map<?, ?>) single(load(formatter.format(cycle)));
+            check(loaded.get("self") == loaded, true);
+        } finally {
+            formatter.setTrackReferences(false);
+        }
+        System.out.println("ok");
+    }
+
+    private static Object load(String yaml) {
+        final LoaderOptions options = new LoaderOptions();
+        options.setAllowRecursiveKeys(true);
+        try {
+            return new Yaml(options).load(yaml);
+        } catch (RuntimeException e) {
+            throw new AssertionError("无法解析的 YAML：\n" + yaml, e);
+        }
+    }
+
+    private static Object single(Object loaded) {
+        final Map<?, ?> root = (Map<?, ?>) loaded;
+        check(root.size(), 1);
+        return root.values().iterator().next();
+    }
+
+    private static void check(Object actual, Object expected) {
+        if (!expected.equals(actual)) {
+            throw new AssertionError("期望 " + expected + " 实际 " + actual);
+        }
+    }
+
+    // 准备了一个包含各种标量的类
+    public static class Dto {
+        String text = "x: y";
+        String yes = "yes";
+        double score = 99.5;
+        double nan = Double.NaN;
+        double inf = Double.POSITIVE_INFINITY;
+        float ninf = Float.NEGATIVE_INFINITY;
+        List<Integer> list = Arrays.asList(1, 2);
+        Map<String, Object> empty = new HashMap<>();
+    }
+}
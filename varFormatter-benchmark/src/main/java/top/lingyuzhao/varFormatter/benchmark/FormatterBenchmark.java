@@ -0,0 +1,158 @@
+package top.lingyuzhao.varFormatter.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import top.lingyuzhao.varFormatter.core.Formatter;
+import top.lingyuzhao.varFormatter.core.VarFormatter;
+import top.lingyuzhao.varFormatter.utils.Utf8Sink;
+
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 所有格式化组件的基准测试，会针对每一种格式化组件与每一种数据形状分别测量 format 与 formatToStream 的吞吐量与延迟分布。
+ * <p>
+ * Benchmark of every formatter, measuring throughput and the latency distribution of format and formatToStream for every formatter and every data shape.
+ * <p>
+ * 打包之后使用 `java -jar target/benchmarks.jar -prof gc` 运行即可同时得到每一次操作的内存分配量，直接运行此类的 main 函数会自动启用 GC 分析器。
+ * <p>
+ * After packaging, run `java -jar target/benchmarks.jar -prof gc` to also get the allocation per operation. Running the main function of this class enables the GC profiler automatically.
+ *
+ * @author zhao
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FormatterBenchmark {
+
+    @Param({"JSON", "XML", "HTML", "YAML", "MERMAID", "J_TO_PYTHON"})
+    public VarFormatter formatterType;
+
+    @Param({"FLAT", "DEEP", "WIDE_MAP", "LARGE_LIST", "DATA_OBJ", "XML_NODE", "STRINGS"})
+    public Payloads.Shape shape;
+
+    private Formatter formatter;
+    private Object data;
+    private PrintWriter charStream;
+    private Utf8Sink byteStream;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) {
+        this.formatter = formatterType.getFormatter(false);
+        this.data = Payloads.create(shape);
+        this.charStream = new PrintWriter(new BlackholeWriter(blackhole), false);
+        this.byteStream = Utf8Sink.of(new BlackholeOutputStream(blackhole));
+    }
+
+    /**
+     * 格式化为字符串。
+     */
+    @Benchmark
+    public String format() {
+        return formatter.format(data);
+    }
+
+    /**
+     * 格式化到字符输出流。
+     */
+    @Benchmark
+    public void formatToStream() {
+        formatter.formatToStream(data, charStream);
+    }
+
+    /**
+     * 格式化到 UTF-8 字节输出流。
+     */
+    @Benchmark
+    public void formatToUtf8() {
+        formatter.formatToStream(data, byteStream);
+        byteStream.flush();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        final Options options = new OptionsBuilder()
+                .include(FormatterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * 将所有字符交给 Blackhole 的字符输出流，避免结果被 JIT 消除。
+     */
+    private static final class BlackholeWriter extends Writer {
+        private final Blackhole blackhole;
+
+        BlackholeWriter(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int c) {
+            blackhole.consume(c);
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            blackhole.consume(buf);
+            blackhole.consume(len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            blackhole.consume(str);
+            blackhole.consume(len);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * 将所有字节交给 Blackhole 的字节输出流。
+     */
+    private static final class BlackholeOutputStream extends OutputStream {
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+            blackhole.consume(len);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package top.lingyuzhao.varFormatter.benchmark;
+
+import top.lingyuzhao.varFormatter.utils.DataObj;
+import top.lingyuzhao.varFormatter.utils.XmlNodeObj;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试使用的数据，每一种数据形状都会覆盖格式化组件中的一条主要路径。
+ * <p>
+ * The data used by the benchmarks, every data shape covers one of the main paths of the formatters.
+ *
+ * @author zhao
+ */
+public final class Payloads {
+
+    private Payloads() {
+    }
+
+    /**
+     * 数据的形状
+     * <p>
+     * The shape of the data
+     */
+    public enum Shape {
+        /**
+         * 只包含基本类型与字符串字段的对象
+         */
+        FLAT,
+        /**
+         * 多层嵌套的对象
+         */
+        DEEP,
+        /**
+         * 包含大量键的 Map
+         */
+        WIDE_MAP,
+        /**
+         * 包含大量元素的集合
+         */
+        LARGE_LIST,
+        /**
+         * DataObj 组成的树
+         */
+        DATA_OBJ,
+        /**
+         * 带有属性的 XmlNodeObj 组成的树
+         */
+        XML_NODE,
+        /**
+         * 以字符串为主并且包含需要转义的字符的对象
+         */
+        STRINGS
+    }
+
+    /**
+     * 创建一个对应形状的数据。
+     *
+     * @param shape 数据的形状
+     * @return 需要被格式化的数据
+     */
+    public static Object create(Shape shape) {
+        switch (shape) {
+            case FLAT:
+                return new Flat(1);
+            case DEEP:
+                return Deep.of(16);
+            case WIDE_MAP:
+                return wideMap(512);
+            case LARGE_LIST:
+                return largeList(2048);
+            case DATA_OBJ:
+                return dataObjTree("root", 3, 6);
+            case XML_NODE:
+                return xmlNodeTree("root", 3, 6);
+            case STRINGS:
+                return new Strings();
+            default:
+                throw new IllegalArgumentException(shape.name());
+        }
+    }
+
+    private static Map<String, Object> wideMap(int width) {
+        final Map<String, Object> map = new LinkedHashMap<>(width * 2);
+        for (int i = 0; i < width; i++) {
+            map.put("key" + i, (i & 1) == 0 ? (Object) (i * 31L) : "value-" + i);
+        }
+        return map;
+    }
+
+    private static List<Object> largeList(int size) {
+        final List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new Flat(i));
+        }
+        return list;
+    }
+
+    private static DataObj dataObjTree(String name, int depth, int width) {
+        final DataObj dataObj = new DataObj(name);
+        for (int i = 0; i < width; i++) {
+            if (depth > 1) {
+                dataObj.put(dataObjTree(name + '_' + i, depth - 1, width));
+            } else {
+                dataObj.put("leaf" + i, i * 1.25);
+            }
+        }
+        return dataObj;
+    }
+
+    private static XmlNodeObj xmlNodeTree(String name, int depth, int width) {
+        final XmlNodeObj node = new XmlNodeObj(name);
+        node.setAttr("id", name);
+        node.setAttr("type", depth > 1 ? "branch" : "leaf");
+        for (int i = 0; i < width; i++) {
+            if (depth > 1) {
+                node.put(xmlNodeTree(name + '_' + i, depth - 1, width));
+            } else {
+                node.put("leaf" + i, "text " + i);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * 扁平的对象
+     */
+    public static class Flat {
+        public int id;
+        public long timestamp = 1700000000000L;
+        public double value = 12.375;
+        public float ratio = 0.5f;
+        public String name = "metric.cpu.user";
+        public String host = "node-17";
+
+        public Flat(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * 嵌套的对象
+     */
+    public static class Deep {
+        public int depth;
+        public String label;
+        public Deep child;
+
+        static Deep of(int depth) {
+            final Deep deep = new Deep();
+            deep.depth = depth;
+            deep.label = "level-" + depth;
+            deep.child = depth > 1 ? of(depth - 1) : null;
+            return deep;
+        }
+    }
+
+    /**
+     * 以字符串为主的对象，其中一部分字符串需要被转义。
+     */
+    public static class Strings {
+        public String plain = "The quick brown fox jumps over the lazy dog";
+        public String quoted = "She said \"hello\" and left";
+        public String multiline = "line one\nline two\n\tindented line three";
+        public String markup = "<a href=\"https://example.com/?a=1&b=2\">link</a>";
+        public String unicode = "数据格式化 — données — データ";
+        public List<String> tags = new ArrayList<>();
+
+        public Strings() {
+            for (int i = 0; i < 32; i++) {
+                tags.add(i % 4 == 0 ? "tag \"" + i + '"' : "tag-" + i);
+            }
+        }
+    }
+}
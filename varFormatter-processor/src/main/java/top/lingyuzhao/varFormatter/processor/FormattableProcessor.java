@@ -0,0 +1,359 @@
+package top.lingyuzhao.varFormatter.processor;
+
+import top.lingyuzhao.varFormatter.annotation.NamingStrategy;
+import top.lingyuzhao.varFormatter.core.StructuralCache;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Formattable 注解处理器，此处理器会在编译时为每一个被 Formattable 标记的类生成一个 GeneratedStructure 的实现类，格式化时 StructuralCache 会直接使用生成的代码读取字段。
+ * <p>
+ * Formattable annotation processor. At compile time it generates a GeneratedStructure implementation for every class marked with Formattable, and StructuralCache uses the generated code to read the fields when formatting.
+ * <p>
+ * 生成的代码与被标记的类处于同一个包中，因此私有字段需要提供非私有的 getX 或 isX 函数，类本身不能是私有的，嵌套类必须是静态的。字段的选择与命名规则与反射解析一致，包括父类的字段以及 FormatField FormatIgnore FormatNaming 注解。
+ * <p>
+ * The generated code lives in the same package as the marked class, so private fields need a non-private getX or isX function, the class itself must not be private, and nested classes must be static. Fields are selected and named by the same rules as the reflective path, including superclass fields and the FormatField, FormatIgnore and FormatNaming annotations.
+ *
+ * @author zhao
+ */
+@SupportedAnnotationTypes(FormattableProcessor.FORMATTABLE)
+public class FormattableProcessor extends AbstractProcessor {
+
+    /**
+     * 需要处理的注解名字
+     */
+    static final String FORMATTABLE = "top.lingyuzhao.varFormatter.annotation.Formattable";
+
+    private static final String FORMAT_FIELD = "top.lingyuzhao.varFormatter.annotation.FormatField";
+    private static final String FORMAT_IGNORE = "top.lingyuzhao.varFormatter.annotation.FormatIgnore";
+    private static final String FORMAT_NAMING = "top.lingyuzhao.varFormatter.annotation.FormatNaming";
+
+    /**
+     * 生成的类实现的接口
+     */
+    private static final String STRUCTURE = "top.lingyuzhao.varFormatter.core.GeneratedStructure";
+
+    /**
+     * 生成的类名后缀，需要与 GeneratedStructure.SUFFIX 保持一致
+     */
+    private static final String SUFFIX = "$$VarFormatter";
+
+    private static final int KIND_OBJECT = 0;
+    private static final int KIND_INT = 1;
+    private static final int KIND_LONG = 2;
+    private static final int KIND_FLOAT = 3;
+    private static final int KIND_DOUBLE = 4;
+    private static final int KIND_BOOLEAN = 5;
+    private static final int KIND_CHAR = 6;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@Formattable can only be used on classes.");
+                    continue;
+                }
+                this.generate((TypeElement) element);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 为一个类生成结构读取器。
+     *
+     * @param type 被标记的类
+     */
+    private void generate(TypeElement type) {
+        if (!checkAccessible(type)) {
+            return;
+        }
+        final String pkg = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        final String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        final String simpleName = (pkg.isEmpty() ? binaryName : binaryName.substring(pkg.length() + 1)) + SUFFIX;
+        final String typeName = type.getQualifiedName().toString();
+
+        // 解析所有的字段 规则与 StructuralCache 的反射解析保持一致
+        final String naming = annotationValue(processingEnv.getElementUtils().getAllAnnotationMirrors(type), FORMAT_NAMING);
+        final List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type));
+        final Map<String, VariableElement> fields = new LinkedHashMap<>();
+        for (TypeElement declaring : hierarchyOf(type)) {
+            for (VariableElement field : ElementFilter.fieldsIn(declaring.getEnclosedElements())) {
+                final List<? extends AnnotationMirror> mirrors = field.getAnnotationMirrors();
+                if (findAnnotation(mirrors, FORMAT_IGNORE) != null) {
+                    continue;
+                }
+                final Set<Modifier> modifiers = field.getModifiers();
+                if (findAnnotation(mirrors, FORMAT_FIELD) == null && (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT))) {
+                    continue;
+                }
+                final String rename = annotationValue(mirrors, FORMAT_FIELD);
+                final String name = rename == null || rename.isEmpty() ? applyNaming(naming, field.getSimpleName().toString()) : rename;
+                // 先移除再放入 使子类的字段位于父类字段之后
+                fields.remove(name);
+                fields.put(name, field);
+            }
+        }
+
+        // 为每一个字段生成读取表达式
+        final List<String> names = new ArrayList<>(fields.keySet());
+        final List<Integer> kinds = new ArrayList<>();
+        final List<String> reads = new ArrayList<>();
+        boolean ok = true;
+        for (VariableElement field : fields.values()) {
+            final String fieldName = field.getSimpleName().toString();
+            final String declaringName = ((TypeElement) field.getEnclosingElement()).getQualifiedName().toString();
+            final boolean isStatic = field.getModifiers().contains(Modifier.STATIC);
+            final String read;
+            if (isAccessible(field, pkg)) {
+                read = (isStatic ? declaringName : "((" + declaringName + ") data)") + '.' + fieldName;
+            } else {
+                final ExecutableElement getter = findGetter(methods, field, isStatic, pkg);
+                if (getter == null) {
+                    error(field, "Field '" + fieldName + "' of a @Formattable class is not accessible from the generated code and needs an accessible getter.");
+                    ok = false;
+                    continue;
+                }
+                read = (isStatic ? declaringName : "((" + typeName + ") data)") + '.' + getter.getSimpleName() + "()";
+            }
+            kinds.add(kindOf(field.asType().getKind()));
+            reads.add(read);
+        }
+        if (!ok) {
+            return;
+        }
+
+        final StringBuilder source = new StringBuilder();
+        if (!pkg.isEmpty()) {
+            source.append("package ").append(pkg).append(";\n\n");
+        }
+        source.append("/**\n * Generated by varFormatter-processor for {@link ").append(typeName).append("}, do not edit.\n */\n");
+        source.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+        source.append("public final class ").append(simpleName).append(" implements ").append(STRUCTURE).append(" {\n\n");
+        source.append("    private static final String[] NAMES = {");
+        for (int i = 0; i < names.size(); i++) {
+            // 名字来自于注解与命名策略 可能包含需要转义的字符
+            source.append(i == 0 ? "" : ", ").append(processingEnv.getElementUtils().getConstantExpression(names.get(i)));
+        }
+        source.append("};\n\n");
+        source.append("    private static final int[] KINDS = {");
+        for (int i = 0; i < kinds.size(); i++) {
+            source.append(i == 0 ? "" : ", ").append(kinds.get(i));
+        }
+        source.append("};\n\n");
+        source.append("    public ").append(simpleName).append("() {\n    }\n\n");
+        source.append("    @Override\n    public String[] getNames() {\n        return NAMES.clone();\n    }\n\n");
+        source.append("    @Override\n    public int[] getKinds() {\n        return KINDS.clone();\n    }\n\n");
+        appendRead(source, "Object", "get", -1, kinds, reads);
+        appendRead(source, "int", "getInt", KIND_INT, kinds, reads);
+        appendRead(source, "long", "getLong", KIND_LONG, kinds, reads);
+        appendRead(source, "double", "getDouble", KIND_DOUBLE, kinds, reads);
+        appendRead(source, "float", "getFloat", KIND_FLOAT, kinds, reads);
+        source.append("}\n");
+
+        final String qualifiedName = pkg.isEmpty() ? simpleName : pkg + '.' + simpleName;
+        try {
+            final JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+        } catch (IOException e) {
+            error(type, "Failed to generate " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 生成一个读取函数，只会为类型编号相符的字段生成分支。
+     *
+     * @param source     源码
+     * @param returnType 返回值类型
+     * @param method     函数名字
+     * @param kind       需要的字段类型编号，-1 代表所有字段
+     * @param kinds      所有字段的类型编号
+     * @param reads      所有字段的读取表达式
+     */
+    private static void appendRead(StringBuilder source, String returnType, String method, int kind, List<Integer> kinds, List<String> reads) {
+        source.append("    @Override\n    public ").append(returnType).append(' ').append(method).append("(Object data, int index) {\n");
+        source.append("        switch (index) {\n");
+        for (int i = 0; i < reads.size(); i++) {
+            if (kind == -1 || kinds.get(i) == kind) {
+                source.append("            case ").append(i).append(":\n                return ").append(reads.get(i)).append(";\n");
+            }
+        }
+        source.append("            default:\n                throw new IllegalArgumentException(\"No ")
+                .append(returnType).append(" field at index \" + index);\n");
+        source.append("        }\n    }\n\n");
+    }
+
+    /**
+     * 检查生成的代码能否访问这个类。
+     *
+     * @param type 被标记的类
+     * @return 能否访问
+     */
+    private boolean checkAccessible(TypeElement type) {
+        if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+            error(type, "@Formattable can not be used on local or anonymous classes.");
+            return false;
+        }
+        Element current = type;
+        while (current instanceof TypeElement) {
+            final Set<Modifier> modifiers = current.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                error(type, "@Formattable classes and their enclosing classes must not be private.");
+                return false;
+            }
+            if (((TypeElement) current).getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)) {
+                error(type, "Nested @Formattable classes must be static.");
+                return false;
+            }
+            current = current.getEnclosingElement();
+        }
+        return true;
+    }
+
+    /**
+     * 获取一个类的继承链，父类在前，JDK 中的父类不会被包含，判断规则与反射解析共用 {@link StructuralCache#isPlatformType(String)}。
+     */
+    private static List<TypeElement> hierarchyOf(TypeElement type) {
+        final ArrayDeque<TypeElement> hierarchy = new ArrayDeque<>();
+        hierarchy.push(type);
+        TypeMirror superclass = type.getSuperclass();
+        while (superclass.getKind() == TypeKind.DECLARED) {
+            final TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+            final String name = element.getQualifiedName().toString();
+            if (StructuralCache.isPlatformType(name)) {
+                break;
+            }
+            hierarchy.push(element);
+            superclass = element.getSuperclass();
+        }
+        return new ArrayList<>(hierarchy);
+    }
+
+    /**
+     * 判断生成的代码能否直接访问一个字段或函数，生成的代码与被标记的类处于同一个包中。
+     */
+    private boolean isAccessible(Element member, String pkg) {
+        final Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        final TypeElement declaring = (TypeElement) member.getEnclosingElement();
+        final boolean samePackage = processingEnv.getElementUtils().getPackageOf(declaring).getQualifiedName().contentEquals(pkg);
+        return samePackage || (modifiers.contains(Modifier.PUBLIC) && declaring.getModifiers().contains(Modifier.PUBLIC));
+    }
+
+    private static AnnotationMirror findAnnotation(List<? extends AnnotationMirror> mirrors, String annotation) {
+        for (AnnotationMirror mirror : mirrors) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 读取注解的 value 属性，枚举类型的值会返回常量的名字。
+     *
+     * @return 属性的值，如果注解不存在则返回 null，没有设置时返回空字符串
+     */
+    private static String annotationValue(List<? extends AnnotationMirror> mirrors, String annotation) {
+        final AnnotationMirror mirror = findAnnotation(mirrors, annotation);
+        if (mirror == null) {
+            return null;
+        }
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                final Object value = entry.getValue().getValue();
+                return value instanceof VariableElement ? ((VariableElement) value).getSimpleName().toString() : value.toString();
+            }
+        }
+        return "";
+    }
+
+    /**
+     * 按照 NamingStrategy 的规则转换字段的名字，直接使用 NamingStrategy 本身，与反射解析的结果一致。
+     */
+    private static String applyNaming(String naming, String name) {
+        return naming == null || naming.isEmpty() ? name : NamingStrategy.valueOf(naming).apply(name);
+    }
+
+    /**
+     * 查找一个无法直接访问的字段对应的 getX 或 isX 函数。
+     */
+    private ExecutableElement findGetter(List<ExecutableElement> methods, VariableElement field, boolean isStatic, String pkg) {
+        final String name = field.getSimpleName().toString();
+        final String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (ExecutableElement method : methods) {
+            final String methodName = method.getSimpleName().toString();
+            if (!method.getParameters().isEmpty()
+                    || !isAccessible(method, pkg)
+                    || method.getModifiers().contains(Modifier.STATIC) != isStatic
+                    || !processingEnv.getTypeUtils().isSameType(method.getReturnType(), field.asType())) {
+                continue;
+            }
+            if (methodName.equals("get" + suffix) || (methodName.equals("is" + suffix) && field.asType().getKind() == TypeKind.BOOLEAN)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static int kindOf(TypeKind kind) {
+        switch (kind) {
+            case INT:
+            case SHORT:
+            case BYTE:
+                return KIND_INT;
+            case LONG:
+                return KIND_LONG;
+            case FLOAT:
+                return KIND_FLOAT;
+            case DOUBLE:
+                return KIND_DOUBLE;
+            case BOOLEAN:
+                return KIND_BOOLEAN;
+            case CHAR:
+                return KIND_CHAR;
+            default:
+                return KIND_OBJECT;
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
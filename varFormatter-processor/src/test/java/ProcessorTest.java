@@ -0,0 +1,83 @@
+import top.lingyuzhao.varFormatter.annotation.FormatField;
+import top.lingyuzhao.varFormatter.annotation.FormatIgnore;
+import top.lingyuzhao.varFormatter.annotation.FormatNaming;
+import top.lingyuzhao.varFormatter.annotation.Formattable;
+import top.lingyuzhao.varFormatter.annotation.NamingStrategy;
+import top.lingyuzhao.varFormatter.core.GeneratedStructure;
+import top.lingyuzhao.varFormatter.core.ManualFormatter;
+import top.lingyuzhao.varFormatter.core.VarFormatter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 注解处理器的测试类，此类在编译时会由注解处理器为 Order 生成结构读取器，检查使用生成的代码格式化的结果与通过反射格式化字段完全相同的 PlainOrder 的结果一致。
+ *
+ * @author zhao
+ */
+public class ProcessorTest {
+
+    public static void main(String[] args) throws ClassNotFoundException {
+        // 编译时需要已经生成了结构读取器 否则格式化会回退到反射 测试也就没有意义
+        Class.forName(Order.class.getName() + GeneratedStructure.SUFFIX);
+
+        for (VarFormatter type : new VarFormatter[]{VarFormatter.JSON, VarFormatter.XML, VarFormatter.YAML}) {
+            final ManualFormatter formatter = (ManualFormatter) type.getFormatter(false);
+            for (boolean compilePlan : new boolean[]{false, true}) {
+                formatter.setCompilePlan(compilePlan);
+                final String generated = formatter.format(new Order());
+                final String reflected = formatter.format(new PlainOrder()).replace("PlainOrder", "Order");
+                if (!generated.equals(reflected)) {
+                    throw new AssertionError(type + " 生成的代码 " + generated + " 反射 " + reflected);
+                }
+            }
+        }
+        System.out.println("ok");
+    }
+
+    public static class BaseOrder {
+        String orderId = "o-1";
+        long createdAt = 1700000000000L;
+    }
+
+    @Formattable
+    @FormatNaming(NamingStrategy.SNAKE_CASE)
+    public static class Order extends BaseOrder {
+        static int count = 1;
+        private int itemCount = 3;
+        boolean paid = true;
+        double totalPrice = 99.5;
+        float discount = 0.1f;
+        char grade = 'A';
+        @FormatField("note")
+        String remark = "第一单 \"quoted\"";
+        @FormatIgnore
+        String secret = "s";
+        transient String cached = "c";
+        List<Integer> items = Arrays.asList(1, 2, 3);
+        Map<String, Object> extra = Collections.singletonMap("k", "v");
+
+        public int getItemCount() {
+            return itemCount;
+        }
+    }
+
+    @FormatNaming(NamingStrategy.SNAKE_CASE)
+    public static class PlainOrder extends BaseOrder {
+        static int count = 1;
+        private int itemCount = 3;
+        boolean paid = true;
+        double totalPrice = 99.5;
+        float discount = 0.1f;
+        char grade = 'A';
+        @FormatField("note")
+        String remark = "第一单 \"quoted\"";
+        @FormatIgnore
+        String secret = "s";
+        transient String cached = "c";
+        List<Integer> items = Arrays.asList(1, 2, 3);
+        Map<String, Object> extra = Collections.singletonMap("k", "v");
+    }
+}